@@ -1,7 +1,8 @@
 package com.example.management;
 
 import com.example.management.controller.LoginController;
-import com.example.management.data.DataStore;
+import com.example.management.data.Storage;
+import com.example.management.metrics.Metrics;
 import com.example.management.view.LoginView;
 import javafx.application.Application;
 import javafx.scene.Scene;
@@ -11,6 +12,7 @@ public class ManagementApplication extends Application {
 
     @Override
     public void start(Stage primaryStage) {
+        Storage.getInstance().start();
         LoginView loginView = new LoginView();
         LoginController loginController = new LoginController(loginView);
 
@@ -18,6 +20,9 @@ public class ManagementApplication extends Application {
         primaryStage.setScene(scene);
         primaryStage.setTitle("Task and Item Management System");
         primaryStage.show();
+
+        Metrics.startDump(Storage.dataPath("management.metrics.file", "metrics.jsonl"),
+                Long.getLong("management.metrics.seconds", 60));
     }
 
     public static void main(String[] args) {
@@ -26,6 +31,7 @@ public class ManagementApplication extends Application {
 
     @Override
     public void stop() {
-        DataStore.getInstance().saveData();
+        Metrics.stopDump();
+        Storage.getInstance().stop(); // only the shards changed since the last autosave are written here
     }
 }
@@ -0,0 +1,416 @@
+package com.example.management.api;
+
+import com.example.management.controller.ItemController;
+import com.example.management.controller.OwnerController;
+import com.example.management.data.Storage;
+import com.example.management.metrics.Metrics;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Headless mode: the Item/Owner controller operations as JSON over HTTP, for scripts and other tools.
+// Listens on loopback only, one virtual thread per request, and every request needs the bearer token
+// printed at startup (or given with -Dmanagement.api.token). Nothing here touches JavaFX.
+public class ApiServer {
+    private static final int MAX_LIMIT = 1000;
+
+    static {
+        // The JDK server writes the headers and the body separately; with Nagle on, every keep-alive response
+        // waits out the client's delayed ACK (about 40 ms). Read once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ItemController itemController = new ItemController();
+    private final OwnerController ownerController = new OwnerController();
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final byte[] token;
+
+    public record ItemJson(int id, String name, String description, int condition, int ownerId) {
+        static ItemJson of(Item item) {
+            Owner owner = item.getOwner();
+            return new ItemJson(item.getId(), item.getName(), item.getDescriptionUncached(), item.getCondition(),
+                    owner != null ? owner.getId() : Transaction.NONE);
+        }
+    }
+
+    public record OwnerJson(int id, String name, List<Integer> itemIds) {
+        static OwnerJson of(Owner owner) {
+            return new OwnerJson(owner.getId(), owner.getName(), owner.getItems().stream().map(Item::getId).toList());
+        }
+    }
+
+    public record Page<T>(int total, int offset, List<T> rows) { }
+
+    public record ItemInput(String name, String description) { }
+
+    public record OwnerInput(String name) { }
+
+    public record RepairInput(int amount) { }
+
+    public record IdsInput(List<Integer> ids) { }
+
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public ApiServer(int port, String token) throws IOException {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/items", exchange -> handle(exchange, this::routeItems));
+        this.server.createContext("/owners", exchange -> handle(exchange, this::routeOwners));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("management.api.port", 8080);
+        String token = System.getProperty("management.api.token");
+        if (token == null) {
+            byte[] random = new byte[24];
+            new SecureRandom().nextBytes(random);
+            token = HexFormat.of().formatHex(random);
+        }
+        Storage.getInstance().start();
+        ApiServer api = new ApiServer(port, token);
+        api.start();
+        Metrics.startDump(Storage.dataPath("management.metrics.file", "metrics.jsonl"),
+                Long.getLong("management.metrics.seconds", 60));
+        // Ctrl-C or a kill: stop taking requests, then write what changed since the last autosave
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            Metrics.stopDump();
+            Storage.getInstance().stop();
+        }, "api-shutdown"));
+        System.out.println("Listening on http://127.0.0.1:" + api.getPort() + " (Authorization: Bearer " + token + ")");
+    }
+
+    private interface Route {
+        Object handle(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        int status = 200;
+        Object body;
+        try {
+            if (!authorized(exchange)) {
+                throw new ApiException(401, "Missing or wrong bearer token");
+            }
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+            body = route.handle(exchange, path, query(exchange.getRequestURI().getRawQuery()));
+            if (body == null) status = 204;
+        } catch (ApiException e) {
+            status = e.status;
+            body = Map.of("error", e.getMessage());
+        } catch (NoSuchElementException e) {
+            status = 404;
+            body = Map.of("error", e.getMessage());
+        } catch (IllegalArgumentException e) { // also covers unreadable numbers and JSON
+            status = 400;
+            body = Map.of("error", String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            status = 500;
+            body = Map.of("error", "Internal error");
+            System.err.println("API request " + exchange.getRequestURI() + " failed: " + e);
+        }
+        try (exchange) {
+            if (status == 204) {
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+            byte[] bytes = mapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    // /items, /items/search, /items/unassigned, /items/batch, /items/delete, /items/{id}[/repair|/unassign|/history]
+    private Object routeItems(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                int offset = intParam(query, "offset", 0);
+                List<ItemJson> rows = itemController.findItems(offset, limit(query), "desc".equals(query.get("order")))
+                        .stream().map(ItemJson::of).toList();
+                return new Page<>(itemController.countItems(), offset, rows);
+            }
+            if (method.equals("POST")) {
+                ItemInput input = read(exchange, ItemInput.class);
+                return ItemJson.of(itemController.addItem(required(input.name(), "name"), required(input.description(), "description")));
+            }
+            throw notAllowed(method);
+        }
+        if (path.length == 2) {
+            switch (path[1]) {
+                case "search" -> {
+                    expect(method, "GET");
+                    return itemController.searchItems(query.getOrDefault("q", ""), limit(query)).stream().map(ItemJson::of).toList();
+                }
+                case "unassigned" -> {
+                    expect(method, "GET");
+                    List<ItemJson> rows = ownerController.getUnassignedItems(intParam(query, "after", Integer.MIN_VALUE), limit(query))
+                            .stream().map(ItemJson::of).toList();
+                    return new Page<>(ownerController.countUnassignedItems(), 0, rows);
+                }
+                case "batch" -> {
+                    expect(method, "POST");
+                    List<ItemInput> inputs = read(exchange, mapper.getTypeFactory().constructCollectionType(List.class, ItemInput.class));
+                    List<ItemJson> created = new ArrayList<>(inputs.size());
+                    for (ItemInput input : inputs) {
+                        if (input == null) throw new IllegalArgumentException("Items must not be null");
+                        created.add(ItemJson.of(itemController.addItem(required(input.name(), "name"), required(input.description(), "description"))));
+                    }
+                    return created;
+                }
+                case "delete" -> {
+                    expect(method, "POST");
+                    itemController.deleteItems(ids(read(exchange, IdsInput.class)));
+                    return null;
+                }
+                default -> {
+                    Item item = item(path[1]);
+                    switch (method) {
+                        case "GET" -> {
+                            return ItemJson.of(item);
+                        }
+                        case "PUT" -> {
+                            ItemInput input = read(exchange, ItemInput.class);
+                            itemController.updateItem(item.getId(), required(input.name(), "name"), required(input.description(), "description"));
+                            return ItemJson.of(item);
+                        }
+                        case "DELETE" -> {
+                            itemController.deleteItem(item.getId());
+                            return null;
+                        }
+                        default -> throw notAllowed(method);
+                    }
+                }
+            }
+        }
+        if (path.length == 3) {
+            Item item = item(path[1]);
+            switch (path[2]) {
+                case "repair" -> {
+                    expect(method, "POST");
+                    int amount = read(exchange, RepairInput.class).amount();
+                    if (amount < 0 || amount > 100) {
+                        throw new ApiException(400, "\"amount\" must be between 0 and 100");
+                    }
+                    boolean hitMax = itemController.repairItem(item, amount);
+                    return Map.of("item", ItemJson.of(item), "hitMax", hitMax);
+                }
+                case "unassign" -> {
+                    expect(method, "POST");
+                    Owner owner = item.getOwner();
+                    if (owner == null || !itemController.unassignItemFromOwner(owner, item)) {
+                        throw new ApiException(409, "Item " + item.getId() + " is not assigned");
+                    }
+                    return ItemJson.of(item);
+                }
+                case "history" -> {
+                    expect(method, "GET");
+                    int offset = intParam(query, "offset", 0);
+                    return new Page<>(itemController.countHistory(item), offset, itemController.findHistory(item, offset, limit(query)));
+                }
+            }
+        }
+        throw new NoSuchElementException("No such resource: " + exchange.getRequestURI().getPath());
+    }
+
+    // /owners, /owners/{id}[/assign|/unassign-all|/activity]
+    private Object routeOwners(HttpExchange exchange, String[] path, Map<String, String> query) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                int offset = intParam(query, "offset", 0);
+                List<OwnerJson> rows = ownerController.findOwners(offset, limit(query), "desc".equals(query.get("order")))
+                        .stream().map(OwnerJson::of).toList();
+                return new Page<>(ownerController.countOwners(), offset, rows);
+            }
+            if (method.equals("POST")) {
+                return OwnerJson.of(ownerController.addOwner(required(read(exchange, OwnerInput.class).name(), "name")));
+            }
+            throw notAllowed(method);
+        }
+        Owner owner = owner(path[1]);
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> {
+                    return OwnerJson.of(owner);
+                }
+                case "PUT" -> {
+                    ownerController.updateOwner(owner.getId(), required(read(exchange, OwnerInput.class).name(), "name"));
+                    return OwnerJson.of(owner);
+                }
+                case "DELETE" -> {
+                    ownerController.deleteOwner(owner.getId());
+                    return null;
+                }
+                default -> throw notAllowed(method);
+            }
+        }
+        if (path.length == 3) {
+            switch (path[2]) {
+                case "assign" -> {
+                    expect(method, "POST");
+                    List<Item> items = new ArrayList<>();
+                    for (int id : ids(read(exchange, IdsInput.class))) {
+                        items.add(item(Integer.toString(id)));
+                    }
+                    List<Integer> rejected = ownerController.assignItemsToOwner(owner, items).stream().map(Item::getId).toList();
+                    return Map.of("owner", OwnerJson.of(owner), "rejected", rejected);
+                }
+                case "unassign-all" -> {
+                    expect(method, "POST");
+                    return Map.of("unassigned", ownerController.unassignAllItems(owner));
+                }
+                case "activity" -> {
+                    expect(method, "GET");
+                    Instant from = Instant.ofEpochSecond(longParam(query, "from", 0));
+                    Instant to = Instant.ofEpochSecond(longParam(query, "to", Instant.now().getEpochSecond()));
+                    return ownerController.findActivity(owner, from, to);
+                }
+            }
+        }
+        throw new NoSuchElementException("No such resource: " + exchange.getRequestURI().getPath());
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return false;
+        return MessageDigest.isEqual(token, header.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Item item(String id) {
+        Item item = itemController.findItem(Integer.parseInt(id));
+        if (item == null) {
+            throw new NoSuchElementException("Item with ID " + id + " not found.");
+        }
+        return item;
+    }
+
+    private Owner owner(String id) {
+        Owner owner = ownerController.findOwner(Integer.parseInt(id));
+        if (owner == null) {
+            throw new NoSuchElementException("Owner with ID " + id + " not found.");
+        }
+        return owner;
+    }
+
+    private <T> T read(HttpExchange exchange, Class<T> type) throws IOException {
+        return read(exchange, mapper.getTypeFactory().constructType(type));
+    }
+
+    private <T> T read(HttpExchange exchange, JavaType type) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            T value = mapper.readValue(in, type);
+            if (value == null) {
+                throw new IllegalArgumentException("Request body is required");
+            }
+            return value;
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Unreadable request body: " + e.getOriginalMessage());
+        }
+    }
+
+    private static String required(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("\"" + field + "\" is required");
+        }
+        return value;
+    }
+
+    private static List<Integer> ids(IdsInput input) {
+        if (input.ids() == null) {
+            throw new IllegalArgumentException("\"ids\" is required");
+        }
+        if (input.ids().contains(null)) {
+            throw new IllegalArgumentException("\"ids\" must not contain null");
+        }
+        return input.ids();
+    }
+
+    private static void expect(String method, String expected) {
+        if (!method.equals(expected)) throw notAllowed(method);
+    }
+
+    private static ApiException notAllowed(String method) {
+        return new ApiException(405, method + " is not supported here");
+    }
+
+    private static int limit(Map<String, String> query) {
+        return Math.clamp(intParam(query, "limit", 100), 0, MAX_LIMIT);
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback) {
+        String value = query.get(name);
+        return value != null ? Integer.parseInt(value) : fallback;
+    }
+
+    private static long longParam(Map<String, String> query, String name, long fallback) {
+        String value = query.get(name);
+        return value != null ? Long.parseLong(value) : fallback;
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+}
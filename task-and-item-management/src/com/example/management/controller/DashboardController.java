@@ -23,6 +23,7 @@ public class DashboardController {
 
         // Clear the current user session
         DataStore.getInstance().setCurrentUser(null);
+        this.dashboardView.dispose();
         // Clear the form fields in the login view
         this.loginView.getUserField().clear();
         this.loginView.getPassField().clear();
@@ -1,67 +1,214 @@
 package com.example.management.controller;
 
+import com.example.management.data.ChangeEvent;
+import com.example.management.data.ChangeEvents;
 import com.example.management.data.DataStore;
+import com.example.management.data.EntityLocks;
+import com.example.management.data.HistoryArchive;
+import com.example.management.data.IdOrderIndex;
+import com.example.management.data.PersistentIdTree;
+import com.example.management.data.ItemSearchIndex;
+import com.example.management.data.SortKeyIndex;
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
 import com.example.management.model.Item;
 import com.example.management.model.Owner;
 import com.example.management.model.Transaction;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
 
 
 public class ItemController {
+    private static final Timer FIND_ALL_ITEMS_TIMER = Metrics.timer("ItemController.findAllItems");
+    private static final Timer FIND_ITEM_TIMER = Metrics.timer("ItemController.findItem");
+    private static final Timer FIND_ITEMS_TIMER = Metrics.timer("ItemController.findItems");
+    private static final Timer COUNT_ITEMS_TIMER = Metrics.timer("ItemController.countItems");
+    private static final Timer POSITION_OF_TIMER = Metrics.timer("ItemController.positionOf");
+    private static final Timer SEARCH_ITEMS_TIMER = Metrics.timer("ItemController.searchItems");
+    private static final Timer FIND_HISTORY_TIMER = Metrics.timer("ItemController.findHistory");
+    private static final Timer COUNT_HISTORY_TIMER = Metrics.timer("ItemController.countHistory");
+    private static final Timer ADD_ITEM_TIMER = Metrics.timer("ItemController.addItem");
+    private static final Timer UPDATE_ITEM_TIMER = Metrics.timer("ItemController.updateItem");
+    private static final Timer UNASSIGN_ITEM_FROM_OWNER_TIMER = Metrics.timer("ItemController.unassignItemFromOwner");
+    private static final Timer DELETE_ITEM_TIMER = Metrics.timer("ItemController.deleteItem");
+    private static final Timer DELETE_ITEMS_TIMER = Metrics.timer("ItemController.deleteItems");
+    private static final Timer REPAIR_ITEM_TIMER = Metrics.timer("ItemController.repairItem");
+    private static final Timer OWNER_NAME_TIMER = Metrics.timer("ItemController.ownerName");
+
     private final DataStore store = DataStore.getInstance();
+    private final ChangeEvents events = ChangeEvents.getInstance();
+    private final HistoryArchive history = HistoryArchive.getInstance();
+    private final EntityLocks locks = EntityLocks.getInstance();
 
     public Collection<Item> findAllItems() {
-        return this.store.findAllItems();
+        return FIND_ALL_ITEMS_TIMER.time(() -> this.store.findAllItems());
+    }
+
+    public Item findItem(int id) {
+        return FIND_ITEM_TIMER.time(() -> this.store.findItemById(id));
+    }
+
+    // rows [offset, offset + limit) in id order
+    public List<Item> findItems(int offset, int limit, boolean descending) {
+        return FIND_ITEMS_TIMER.time(() -> IdOrderIndex.items().page(offset, limit, descending));
+    }
+
+    // rows [offset, offset + limit) in the order of one table column
+    public List<Item> findItems(SortKey key, int offset, int limit, boolean descending) {
+        return FIND_ITEMS_TIMER.time(() -> switch (key) {
+            case ID -> IdOrderIndex.items().page(offset, limit, descending);
+            case NAME -> SortKeyIndex.itemsByName().page(offset, limit, descending);
+            case CONDITION -> SortKeyIndex.itemsByCondition().page(offset, limit, descending);
+        });
+    }
+
+    // same contract as the indexes: an entity that was just removed gets the row it had
+    public int positionOf(SortKey key, Item item, boolean descending) {
+        return POSITION_OF_TIMER.time(() -> switch (key) {
+            case ID -> {
+                PersistentIdTree<Item> rows = IdOrderIndex.items().snapshot();
+                int position = rows.positionOf(item.getId());
+                boolean indexed = position < rows.size() && rows.get(position) == item;
+                yield descending ? rows.size() - position - (indexed ? 1 : 0) : position;
+            }
+            case NAME -> SortKeyIndex.itemsByName().positionOf(item, descending);
+            case CONDITION -> SortKeyIndex.itemsByCondition().positionOf(item, descending);
+        });
+    }
+
+    public int countItems() {
+        return COUNT_ITEMS_TIMER.time(() -> IdOrderIndex.items().size());
+    }
+
+    public int positionOf(Item item) {
+        return POSITION_OF_TIMER.time(() -> IdOrderIndex.items().positionOf(item.getId()));
+    }
+
+    public List<Item> searchItems(String query, int limit) {
+        return SEARCH_ITEMS_TIMER.time(() -> ItemSearchIndex.getInstance().search(query, limit));
+    }
+
+    // newest first
+    public List<Transaction> findHistory(Item item, int offset, int limit) {
+        return FIND_HISTORY_TIMER.time(() -> this.history.page(item, offset, limit));
+    }
+
+    public int countHistory(Item item) {
+        return COUNT_HISTORY_TIMER.time(() -> this.history.size(item));
     }
 
     public Item addItem(String name, String description) {
-        Item item = new Item(name, description);
-        return this.store.addItem(item);
+        return ADD_ITEM_TIMER.time(() -> {
+            Item item = this.store.addItem(new Item(name, description));
+            // under the item's lock like every other change to it, so a delete that got in first wins
+            this.locks.withItem(item, Transaction.NONE, () -> {
+                if (this.store.findItemById(item.getId()) == item) {
+                    this.events.fireItemChanges(List.of(ChangeEvent.added(item)));
+                }
+                return null;
+            });
+            return item;
+        });
     }
 
     public void updateItem(int id, String newName, String newDesc) {
-        Item item = this.store.findItemById(id);
-        if(item == null) {
-            throw new NoSuchElementException("Artifact with ID " + id + " not found.");
-        }
-        item.setName(newName);
-        item.setDescription(newDesc);
+        UPDATE_ITEM_TIMER.time(() -> {
+            Item item = this.store.findItemById(id);
+            if(item == null) {
+                throw new NoSuchElementException("Artifact with ID " + id + " not found.");
+            }
+            this.locks.withItem(item, Transaction.NONE, () -> {
+                item.setName(newName);
+                item.setDescription(newDesc);
+                this.events.fireItemChanges(List.of(ChangeEvent.updated(item)));
+                return null;
+            });
+        });
     }
 
     public boolean unassignItemFromOwner(Owner owner, Item item) {
-        boolean success = store.unassignItemFromOwner(owner.getId(), item.getId());
-        if (success) {
-            Transaction transaction = new Transaction("UNASSIGN", item, LocalDateTime.now().withNano(0), null, owner);
-            item.addTransaction(transaction);
-        }
-        return success;
+        return UNASSIGN_ITEM_FROM_OWNER_TIMER.time(() -> {
+            return this.locks.withItem(item, owner.getId(), () -> {
+                if (!this.store.unassignItemFromOwner(owner.getId(), item.getId())) return false;
+                this.history.record(item, Transaction.unassign(item, owner, Instant.now().getEpochSecond()));
+                this.events.fireItemChanges(List.of(ChangeEvent.updated(item)));
+                this.events.fireOwnerChanges(List.of(ChangeEvent.updated(owner)));
+                return true;
+            });
+        });
     }
 
 
     public void deleteItem(int id) {
-        this.store.deleteItemById(id);
+        DELETE_ITEM_TIMER.time(() -> deleteItems(List.of(id)));
+    }
+
+    public void deleteItems(Collection<Integer> ids) {
+        DELETE_ITEMS_TIMER.time(() -> {
+            List<Item> batch = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                Item item = this.store.findItemById(Objects.requireNonNull(id, "id"));
+                if (item != null) {
+                    batch.add(item);
+                }
+            }
+            if (batch.isEmpty()) return;
+            List<ChangeEvent<Item>> removed = new ArrayList<>();
+            Set<Owner> previousOwners = new LinkedHashSet<>();
+            this.locks.withItems(batch, Transaction.NONE, () -> {
+                for (Item item : batch) {
+                    int id = item.getId();
+                    if (this.store.findItemById(id) != item) continue; // deleted while we waited for the lock
+                    Owner owner = item.getOwner();
+                    this.store.deleteItemById(id);
+                    this.history.delete(id);
+                    if (owner != null) {
+                        previousOwners.add(owner);
+                    }
+                    removed.add(ChangeEvent.removed(item));
+                }
+                this.events.fireItemChanges(removed);
+                this.events.fireOwnerChanges(ChangeEvent.allUpdated(previousOwners));
+                return null;
+            });
+        });
     }
 
     public boolean repairItem(Item item, int amount) {
-        int total = item.getCondition() + amount;
-        boolean hitMax = (total >= 100);
-        String type = "REPAIR by " + amount;
-        if (hitMax) {
-            item.setCondition(100);
-            type = type + " (hit max)";
-        }
-        else {
-            item.setCondition(item.getCondition() + amount);
-        }
-
-        Transaction transaction = new Transaction(type, item, LocalDateTime.now().withNano(0), null, null);
-        item.addTransaction(transaction);
-
-        return hitMax;
+        return REPAIR_ITEM_TIMER.time(() -> {
+            // read-modify-write of the condition, so under the item's lock
+            boolean hitMax = this.locks.withItem(item, Transaction.NONE, () -> {
+                int total = item.getCondition() + amount;
+                boolean max = (total >= 100);
+                if (max) {
+                    item.setCondition(100);
+                }
+                else {
+                    item.setCondition(item.getCondition() + amount);
+                }
+                this.history.record(item, Transaction.repair(item, amount, max, Instant.now().getEpochSecond()));
+                this.events.fireItemChanges(List.of(ChangeEvent.updated(item)));
+                return max;
+            });
+
+            return hitMax;
+        });
+    }
 
+    // display name for an owner id stored in a transaction
+    public String ownerName(int ownerId) {
+        return OWNER_NAME_TIMER.time(() -> {
+            if (ownerId == Transaction.NONE) return "--";
+            Owner owner = this.store.findOwnersById(ownerId);
+            return owner != null ? owner.getName() : "(deleted, ID: " + ownerId + ")";
+        });
     }
 }
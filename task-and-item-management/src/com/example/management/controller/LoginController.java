@@ -1,9 +1,11 @@
 package com.example.management.controller;
 
 import com.example.management.data.DataStore;
+import com.example.management.data.UserDirectory;
 import com.example.management.model.User;
 import com.example.management.view.DashboardView;
 import com.example.management.view.LoginView;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
@@ -15,10 +17,31 @@ public class LoginController {
         this.loginView.setController(this);
     }
 
+    // password hashing is deliberately slow, so it runs off the FX thread and the form waits for it
     public void handleLogin(String username, String password) {
-        User user = DataStore.getInstance().authenticate(username, password);
+        this.loginView.getLoginButton().setDisable(true);
+        this.loginView.getMessageLabel().setText("Signing in...");
+        Thread.startVirtualThread(() -> {
+            try {
+                User user = UserDirectory.getInstance().authenticate(username, password);
+                Platform.runLater(() -> {
+                    this.loginView.getLoginButton().setDisable(false);
+                    completeLogin(user);
+                });
+            } catch (RuntimeException e) {
+                System.err.println("Login failed: " + e);
+                Platform.runLater(() -> {
+                    this.loginView.getLoginButton().setDisable(false);
+                    this.loginView.getMessageLabel().setText("Sign-in failed, please try again.");
+                });
+            }
+        });
+    }
+
+    private void completeLogin(User user) {
         if (user != null) { // User authenticated successfully
             // Save the authenticated user
+            this.loginView.getMessageLabel().setText("");
             DataStore.getInstance().setCurrentUser(user);
             DashboardView dashboardView = new DashboardView(); // Create the dashboard view ONLY after successful login
             DashboardController dashboardController = new DashboardController(dashboardView, this.loginView); // Create the controller for the dashboard view
@@ -1,55 +1,224 @@
 package com.example.management.controller;
 
+import com.example.management.data.ChangeEvent;
+import com.example.management.data.ChangeEvents;
 import com.example.management.data.DataStore;
+import com.example.management.data.EntityLocks;
+import com.example.management.data.HistoryArchive;
+import com.example.management.data.IdOrderIndex;
+import com.example.management.data.PersistentIdTree;
+import com.example.management.data.SortKeyIndex;
+import com.example.management.data.TransactionLedger;
+import com.example.management.data.UnassignedItemIndex;
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
 import com.example.management.model.Item;
 import com.example.management.model.Owner;
 import com.example.management.model.Transaction;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
 
 
 
 public class OwnerController {
+    private static final Timer FIND_ALL_OWNERS_TIMER = Metrics.timer("OwnerController.findAllOwners");
+    private static final Timer FIND_OWNERS_TIMER = Metrics.timer("OwnerController.findOwners");
+    private static final Timer FIND_OWNER_TIMER = Metrics.timer("OwnerController.findOwner");
+    private static final Timer COUNT_OWNERS_TIMER = Metrics.timer("OwnerController.countOwners");
+    private static final Timer POSITION_OF_TIMER = Metrics.timer("OwnerController.positionOf");
+    private static final Timer FIND_ACTIVITY_TIMER = Metrics.timer("OwnerController.findActivity");
+    private static final Timer ADD_OWNER_TIMER = Metrics.timer("OwnerController.addOwner");
+    private static final Timer UPDATE_OWNER_TIMER = Metrics.timer("OwnerController.updateOwner");
+    private static final Timer DELETE_OWNER_TIMER = Metrics.timer("OwnerController.deleteOwner");
+    private static final Timer ASSIGN_ITEM_TO_OWNER_TIMER = Metrics.timer("OwnerController.assignItemToOwner");
+    private static final Timer ASSIGN_ITEMS_TO_OWNER_TIMER = Metrics.timer("OwnerController.assignItemsToOwner");
+    private static final Timer UNASSIGN_ALL_ITEMS_TIMER = Metrics.timer("OwnerController.unassignAllItems");
+    private static final Timer GET_UNASSIGNED_ITEMS_TIMER = Metrics.timer("OwnerController.getUnassignedItems");
+    private static final Timer COUNT_UNASSIGNED_ITEMS_TIMER = Metrics.timer("OwnerController.countUnassignedItems");
+
     private final DataStore store = DataStore.getInstance();
+    private final UnassignedItemIndex unassigned = UnassignedItemIndex.getInstance();
+    private final ChangeEvents events = ChangeEvents.getInstance();
+    private final HistoryArchive history = HistoryArchive.getInstance();
+    private final EntityLocks locks = EntityLocks.getInstance();
 
     public Collection<Owner> findAllOwners() {
-        return this.store.findAllOwners();
+        return FIND_ALL_OWNERS_TIMER.time(() -> this.store.findAllOwners());
+    }
+
+    // rows [offset, offset + limit) in id order
+    public List<Owner> findOwners(int offset, int limit, boolean descending) {
+        return FIND_OWNERS_TIMER.time(() -> IdOrderIndex.owners().page(offset, limit, descending));
+    }
+
+    public Owner findOwner(int id) {
+        return FIND_OWNER_TIMER.time(() -> this.store.findOwnersById(id));
+    }
+
+    // rows [offset, offset + limit) in the order of one table column
+    public List<Owner> findOwners(SortKey key, int offset, int limit, boolean descending) {
+        return FIND_OWNERS_TIMER.time(() -> switch (key) {
+            case ID -> IdOrderIndex.owners().page(offset, limit, descending);
+            case NAME -> SortKeyIndex.ownersByName().page(offset, limit, descending);
+            case CONDITION -> throw new IllegalArgumentException("Owners have no condition");
+        });
+    }
+
+    // same contract as the indexes: an entity that was just removed gets the row it had
+    public int positionOf(SortKey key, Owner owner, boolean descending) {
+        return POSITION_OF_TIMER.time(() -> switch (key) {
+            case ID -> {
+                PersistentIdTree<Owner> rows = IdOrderIndex.owners().snapshot();
+                int position = rows.positionOf(owner.getId());
+                boolean indexed = position < rows.size() && rows.get(position) == owner;
+                yield descending ? rows.size() - position - (indexed ? 1 : 0) : position;
+            }
+            case NAME -> SortKeyIndex.ownersByName().positionOf(owner, descending);
+            case CONDITION -> throw new IllegalArgumentException("Owners have no condition");
+        });
+    }
+
+    public int countOwners() {
+        return COUNT_OWNERS_TIMER.time(() -> IdOrderIndex.owners().size());
+    }
+
+    public int positionOf(Owner owner) {
+        return POSITION_OF_TIMER.time(() -> IdOrderIndex.owners().positionOf(owner.getId()));
+    }
+
+    // assignments to and from the owner in [from, to], oldest first
+    public List<Transaction> findActivity(Owner owner, Instant from, Instant to) {
+        return FIND_ACTIVITY_TIMER.time(() ->
+                TransactionLedger.getInstance().findByOwner(owner.getId(), from.getEpochSecond(), to.getEpochSecond()));
     }
 
     public Owner addOwner(String name) {
-        Owner owner = new Owner(name);
-        return this.store.addOwner(owner);
+        return ADD_OWNER_TIMER.time(() -> {
+            Owner owner = this.store.addOwner(new Owner(name));
+            // under the owner's lock like every other change to it, so a delete that got in first wins
+            this.locks.withOwner(owner.getId(), () -> {
+                if (this.store.findOwnersById(owner.getId()) == owner) {
+                    this.events.fireOwnerChanges(List.of(ChangeEvent.added(owner)));
+                }
+                return null;
+            });
+            return owner;
+        });
     }
 
     public void updateOwner(int id, String newName) {
-        Owner owner = this.store.findOwnersById(id);
-        if(owner == null) {
-            throw new IllegalArgumentException("Wizard with ID " + id + " not found.");
-        }
-        owner.setName(newName);
+        UPDATE_OWNER_TIMER.time(() -> {
+            Owner owner = this.store.findOwnersById(id);
+            if(owner == null) {
+                throw new IllegalArgumentException("Wizard with ID " + id + " not found.");
+            }
+            this.locks.withOwner(id, () -> {
+                owner.setName(newName);
+                this.events.fireOwnerChanges(List.of(ChangeEvent.updated(owner)));
+                this.events.fireItemChanges(ChangeEvent.allUpdated(owner.getItems())); // owner name is shown per item
+                return null;
+            });
+        });
     }
 
     public void deleteOwner(int id) {
-        this.store.deleteOwnerById(id);
+        DELETE_OWNER_TIMER.time(() -> {
+            Owner owner = this.store.findOwnersById(id);
+            if (owner == null) return;
+            this.locks.withOwnerAndAllItems(id, () -> {
+                List<Item> released = List.copyOf(owner.getItems());
+                this.store.deleteOwnerById(id);
+                this.events.fireOwnerChanges(List.of(ChangeEvent.removed(owner)));
+                this.events.fireItemChanges(ChangeEvent.allUpdated(released));
+                return null;
+            });
+        });
     }
 
     public boolean assignItemToOwner(Owner owner, Item item) {
-        boolean success = this.store.assignItemToOwner(owner.getId(), item.getId());
-        if (success) {
-            Transaction transaction = new Transaction("ASSIGN", item, LocalDateTime.now().withNano(0), owner, null);
-            item.addTransaction(transaction);
-        }
-        return success;
+        return ASSIGN_ITEM_TO_OWNER_TIMER.time(() -> assignItemsToOwner(owner, List.of(item)).isEmpty());
+    }
+
+    // returns the items the store refused (e.g. condition < 10); the rest share one timestamp
+    public List<Item> assignItemsToOwner(Owner owner, Collection<Item> items) {
+        return ASSIGN_ITEMS_TO_OWNER_TIMER.time(() -> {
+            requireOwner(owner);
+            List<Item> batch = List.copyOf(new LinkedHashSet<>(items)); // drops repeats, rejects null items
+            for (Item item : batch) {
+                if (this.store.findItemById(item.getId()) != item) {
+                    throw new IllegalArgumentException("Artifact with ID " + item.getId() + " not found.");
+                }
+            }
+            long timeStamp = Instant.now().getEpochSecond();
+            List<Item> rejected = new ArrayList<>();
+            List<Item> assigned = new ArrayList<>();
+            Set<Owner> touchedOwners = new LinkedHashSet<>();
+            touchedOwners.add(owner);
+            // one section for the batch; it holds the items' current owners too, since the store detaches them there
+            this.locks.withItems(batch, owner.getId(), () -> {
+                for (Item item : batch) {
+                    Owner previousOwner = item.getOwner();
+                    if (!this.store.assignItemToOwner(owner.getId(), item.getId())) {
+                        rejected.add(item);
+                        continue;
+                    }
+                    this.history.record(item, Transaction.assign(item, owner, timeStamp));
+                    assigned.add(item);
+                    if (previousOwner != null) {
+                        touchedOwners.add(previousOwner);
+                    }
+                }
+                if (!assigned.isEmpty()) {
+                    this.events.fireItemChanges(ChangeEvent.allUpdated(assigned));
+                    this.events.fireOwnerChanges(ChangeEvent.allUpdated(touchedOwners));
+                }
+                return null;
+            });
+            return rejected;
+        });
+    }
+
+    public int unassignAllItems(Owner owner) {
+        return UNASSIGN_ALL_ITEMS_TIMER.time(() -> {
+            requireOwner(owner);
+            long timeStamp = Instant.now().getEpochSecond();
+            List<Item> unassignedItems = new ArrayList<>();
+            // every item stripe, so nothing can be assigned to the owner between the copy and the loop
+            this.locks.withOwnerAndAllItems(owner.getId(), () -> {
+                for (Item item : List.copyOf(owner.getItems())) {
+                    if (this.store.unassignItemFromOwner(owner.getId(), item.getId())) {
+                        this.history.record(item, Transaction.unassign(item, owner, timeStamp));
+                        unassignedItems.add(item);
+                    }
+                }
+                if (!unassignedItems.isEmpty()) {
+                    this.events.fireItemChanges(ChangeEvent.allUpdated(unassignedItems));
+                    this.events.fireOwnerChanges(List.of(ChangeEvent.updated(owner)));
+                }
+                return null;
+            });
+            return unassignedItems.size();
+        });
     }
 
+    private void requireOwner(Owner owner) {
+        Objects.requireNonNull(owner, "owner");
+        if (this.store.findOwnersById(owner.getId()) != owner) {
+            throw new IllegalArgumentException("Wizard with ID " + owner.getId() + " not found.");
+        }
+    }
 
+    public List<Item> getUnassignedItems(int afterId, int limit) {
+        return GET_UNASSIGNED_ITEMS_TIMER.time(() -> this.unassigned.page(afterId, limit));
+    }
 
-    public List<Item> getUnassignedItems() {
-        return this.store.findAllItems().stream()
-                .filter(a -> a.getOwner() == null)
-                .collect(Collectors.toList());
+    public int countUnassignedItems() {
+        return COUNT_UNASSIGNED_ITEMS_TIMER.time(() -> this.unassigned.size());
     }
 }
@@ -0,0 +1,8 @@
+package com.example.management.controller;
+
+// the columns the paged tables can be ordered by; ties and ID order both go by id
+public enum SortKey {
+    ID,
+    NAME,
+    CONDITION // items only
+}
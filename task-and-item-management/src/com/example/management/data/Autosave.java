@@ -0,0 +1,248 @@
+package com.example.management.data;
+
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Saves in the background: change events mark shards dirty, and every few seconds only those shards are
+// rewritten from a snapshot of the id index. Shutdown then just flushes whatever changed since the last run.
+// Each flush is a generation; the manifest is rewritten only after a flush that saved every shard it drained,
+// so what it lists is always a complete store. Every compactEvery saves the whole store is also written as a
+// binary base, so startup reads one file plus the shards saved since instead of every shard.
+public class Autosave {
+    private static final Timer FLUSH_TIMER = Metrics.timer("Autosave.flush");
+
+    private static Autosave instance;
+
+    private final SnapshotShards shards;
+    private final long periodSeconds;
+    private final int compactEvery;
+    private final Set<Integer> dirtyItemShards = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> dirtyOwnerShards = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Long> itemShards = new HashMap<>(); // as the next manifest will list them
+    private final Map<Integer, Long> ownerShards = new HashMap<>();
+    private long generation;
+    private long baseGeneration;
+    private int savesSinceBase;
+    private boolean manifestPending; // shards were written since the manifest was
+    private ScheduledExecutorService scheduler;
+
+    private Autosave(SnapshotShards shards, long periodSeconds, int compactEvery) {
+        this.shards = shards;
+        this.periodSeconds = periodSeconds;
+        this.compactEvery = compactEvery;
+    }
+
+    public static synchronized Autosave getInstance() {
+        if (instance == null) {
+            instance = new Autosave(SnapshotShards.getInstance(), Long.getLong("management.autosave.seconds", 10),
+                    Integer.getInteger("management.autosave.compactEvery", 60));
+        }
+        return instance;
+    }
+
+    // saved is the manifest the store was loaded from, or null if nothing has been saved yet; replayed are the
+    // ids the journal changed on top of it, saved by the first flush before it deletes their journal segments
+    public synchronized void start(SnapshotShards.Manifest saved, Collection<Integer> replayedItems,
+                                   Collection<Integer> replayedOwners) {
+        if (scheduler != null) return;
+        // the id indexes subscribe first, so by the time a shard is marked dirty its snapshot already has the change
+        PersistentIdTree<Item> items = IdOrderIndex.items().snapshot();
+        PersistentIdTree<Owner> owners = IdOrderIndex.owners().snapshot();
+        ChangeEvents events = ChangeEvents.getInstance();
+        events.addItemListener(changes -> changes.forEach(change -> dirtyItemShards.add(SnapshotShards.shardOf(change.getEntity().getId()))));
+        events.addOwnerListener(changes -> changes.forEach(change -> dirtyOwnerShards.add(SnapshotShards.shardOf(change.getEntity().getId()))));
+        if (saved != null) {
+            generation = saved.generation();
+            baseGeneration = saved.baseGeneration();
+            itemShards.putAll(saved.itemShards());
+            ownerShards.putAll(saved.ownerShards());
+            replayedItems.forEach(id -> dirtyItemShards.add(SnapshotShards.shardOf(id)));
+            replayedOwners.forEach(id -> dirtyOwnerShards.add(SnapshotShards.shardOf(id)));
+        } else {
+            // first run writes everything once; after that only changes are saved
+            items.forEach(item -> dirtyItemShards.add(SnapshotShards.shardOf(item.getId())));
+            owners.forEach(owner -> dirtyOwnerShards.add(SnapshotShards.shardOf(owner.getId())));
+            manifestPending = true; // even an empty store gets a manifest, so the next start loads from it
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // writes every dirty shard; a shard that fails stays dirty for the next run, and so does the manifest
+    public synchronized void flush() {
+        if (dirtyItemShards.isEmpty() && dirtyOwnerShards.isEmpty() && !manifestPending) return;
+        long start = FLUSH_TIMER.start();
+        // everything journaled before the roll was marked dirty before it, so this flush saves it
+        Journal journal = Journal.getInstance();
+        long segment = journal != null ? journal.roll() : 0;
+        HistoryArchive archive = HistoryArchive.getInstance();
+        Set<Integer> deleted = archive.deletedItems(); // taken first, so each was deleted before the snapshot
+        Set<Integer> itemShardsToWrite = drain(dirtyItemShards);
+        Set<Integer> ownerShardsToWrite = drain(dirtyOwnerShards);
+        // after the drain: a shard is marked only once the index has the change, so every change whose mark
+        // was drained is in these snapshots
+        PersistentIdTree<Item> items = IdOrderIndex.items().snapshot();
+        PersistentIdTree<Owner> owners = IdOrderIndex.owners().snapshot();
+        generation++;
+        boolean complete = true;
+        for (int shard : itemShardsToWrite) {
+            try {
+                shards.writeItems(shard, itemRecords(items, shard));
+                itemShards.put(shard, generation);
+                manifestPending = true;
+            } catch (IOException e) {
+                dirtyItemShards.add(shard);
+                complete = false;
+                System.err.println("Could not save item shard " + shard + ": " + e.getMessage());
+            }
+        }
+        for (int shard : ownerShardsToWrite) {
+            try {
+                shards.writeOwners(shard, ownerRecords(owners, shard));
+                ownerShards.put(shard, generation);
+                manifestPending = true;
+            } catch (IOException e) {
+                dirtyOwnerShards.add(shard);
+                complete = false;
+                System.err.println("Could not save owner shard " + shard + ": " + e.getMessage());
+            }
+        }
+        if (complete && manifestPending && writeManifest()) {
+            if (journal != null) {
+                journal.deleteBefore(segment);
+            }
+            // segments of deleted items can go once the saved snapshot no longer lists them
+            archive.purge(deleted.stream().filter(id -> !contains(items, id)).toList());
+            if (++savesSinceBase >= compactEvery) {
+                compact();
+            }
+        }
+        FLUSH_TIMER.stop(start);
+    }
+
+    // The base is read after this generation's shards were written, so it holds at least what they do;
+    // anything changed since is marked dirty and saved in a later generation, which loading lays on top.
+    private void compact() {
+        PersistentIdTree<Item> items = IdOrderIndex.items().snapshot();
+        PersistentIdTree<Owner> owners = IdOrderIndex.owners().snapshot();
+        List<SnapshotShards.ItemRecord> itemRecords = new ArrayList<>(items.size());
+        items.forEach(item -> itemRecords.add(record(item)));
+        List<SnapshotShards.OwnerRecord> ownerRecords = new ArrayList<>(owners.size());
+        owners.forEach(owner -> ownerRecords.add(new SnapshotShards.OwnerRecord(owner.getId(), owner.getName())));
+        long previousBase = baseGeneration;
+        try {
+            shards.writeBase(generation, ownerRecords, itemRecords);
+        } catch (IOException e) {
+            System.err.println("Could not compact the snapshot: " + e.getMessage());
+            return;
+        }
+        baseGeneration = generation;
+        if (!writeManifest()) {
+            baseGeneration = previousBase;
+            return;
+        }
+        savesSinceBase = 0;
+        try {
+            shards.deleteBasesBefore(baseGeneration);
+        } catch (IOException e) {
+            System.err.println("Could not delete old snapshot bases: " + e.getMessage());
+        }
+    }
+
+    private boolean writeManifest() {
+        // synced after the shards, so the ledger holds at least what they do; a transaction racing this
+        // flush may be in the ledger before its item's shard has it, which the next flush makes good
+        long ledgerCount = TransactionLedger.getInstance().sync();
+        DataStore store = DataStore.getInstance(); // read after the shards, so past every id they hold
+        try {
+            shards.writeManifest(new SnapshotShards.Manifest(generation, ledgerCount, baseGeneration,
+                    Map.copyOf(itemShards), Map.copyOf(ownerShards), store.getNextOwnerId(), store.getNextItemId()));
+            manifestPending = false;
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not save the snapshot manifest: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(5, TimeUnit.SECONDS); // let a save that is already running finish
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    // marks are taken off before the snapshot is read, so a change racing the save is saved next time
+    private static Set<Integer> drain(Set<Integer> dirty) {
+        Set<Integer> drained = new TreeSet<>();
+        for (Integer shard : dirty) {
+            if (dirty.remove(shard)) drained.add(shard);
+        }
+        return drained;
+    }
+
+    private static List<SnapshotShards.ItemRecord> itemRecords(PersistentIdTree<Item> items, int shard) {
+        List<SnapshotShards.ItemRecord> records = new ArrayList<>();
+        for (Item item : range(items, shard)) {
+            records.add(record(item));
+        }
+        return records;
+    }
+
+    // history is appended under the item's lock, so copy it under the same lock
+    private static SnapshotShards.ItemRecord record(Item item) {
+        return EntityLocks.getInstance().withItem(item, Transaction.NONE, () -> new SnapshotShards.ItemRecord(item.getId(),
+                item.getName(), item.getDescriptionUncached(),
+                item.getOwner() != null ? item.getOwner().getId() : Transaction.NONE,
+                item.getCondition(), item.getArchivedHistory(), List.copyOf(item.getHistory())));
+    }
+
+    private static List<SnapshotShards.OwnerRecord> ownerRecords(PersistentIdTree<Owner> owners, int shard) {
+        List<SnapshotShards.OwnerRecord> records = new ArrayList<>();
+        for (Owner owner : range(owners, shard)) {
+            records.add(new SnapshotShards.OwnerRecord(owner.getId(), owner.getName()));
+        }
+        return records;
+    }
+
+    private static boolean contains(PersistentIdTree<Item> items, int id) {
+        int position = items.positionOf(id);
+        return position < items.size() && items.get(position).getId() == id;
+    }
+
+    private static <T> List<T> range(PersistentIdTree<T> tree, int shard) {
+        int from = tree.positionOf(shard * SnapshotShards.SHARD_SIZE);
+        int to = tree.positionOf((shard + 1) * SnapshotShards.SHARD_SIZE);
+        return tree.page(from, to - from, false);
+    }
+}
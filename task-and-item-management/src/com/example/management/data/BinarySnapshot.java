@@ -0,0 +1,426 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+import com.example.management.model.TransactionKind;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Binary form of the store: a header, then fixed-width owner, item and transaction records and a string
+// table. Records are sorted by id, so the record arrays double as the id index (binary search), and the
+// file is read through a memory map, records decoded on access. Opening it checks every section size,
+// offset and reference first, so a damaged file fails there with an IOException instead of later with
+// garbage or an index error. The autosave compacts the store into one of these (SnapshotShards.writeBase).
+//
+//   header       MAGIC, VERSION, owner/item/transaction counts, string table size
+//   owners       id, name                                                      (OWNER_BYTES each)
+//   items        id, name, description, ownerId, condition, archivedHistory,
+//                first transaction, transaction count                          (ITEM_BYTES each)
+//   transactions kind, hitMax, amount, epochSecond, itemId, toOwnerId,
+//                fromOwnerId, free-form type (OTHER only)                      (TRANSACTION_BYTES each)
+//   strings      length-prefixed UTF-8; records point at them by offset, -1 for none
+//
+// Converts from and to the JSON shards:
+//   java -cp <classes>:lib/* com.example.management.data.BinarySnapshot to-binary <shard dir> <file>
+//   java -cp <classes>:lib/* com.example.management.data.BinarySnapshot to-json <file> <shard dir>
+public class BinarySnapshot implements AutoCloseable {
+    private static final int MAGIC = 0x54494D53; // "TIMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int OWNER_BYTES = 8;
+    private static final int ITEM_BYTES = 32;
+    private static final int TRANSACTION_BYTES = 32;
+    private static final TransactionKind[] KINDS = TransactionKind.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int ownerCount;
+    private final int itemCount;
+    private final int transactionCount;
+    private final int ownersAt;
+    private final int itemsAt;
+    private final int transactionsAt;
+    private final int stringsAt;
+
+    private BinarySnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is larger than 2 GB");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        this.ownerCount = buffer.getInt(8);
+        this.itemCount = buffer.getInt(12);
+        this.transactionCount = buffer.getInt(16);
+        int stringBytes = buffer.getInt(20);
+        if (ownerCount < 0 || itemCount < 0 || transactionCount < 0 || stringBytes < 0) {
+            throw new IOException("Snapshot header is corrupt");
+        }
+        // in longs, so huge counts can't wrap around to a size that happens to fit
+        long transactionsAt = HEADER_BYTES + (long) ownerCount * OWNER_BYTES + (long) itemCount * ITEM_BYTES;
+        long stringsAt = transactionsAt + (long) transactionCount * TRANSACTION_BYTES;
+        if (stringsAt + stringBytes != buffer.limit()) {
+            throw new IOException("Snapshot is truncated or corrupt");
+        }
+        this.ownersAt = HEADER_BYTES;
+        this.itemsAt = ownersAt + ownerCount * OWNER_BYTES;
+        this.transactionsAt = (int) transactionsAt;
+        this.stringsAt = (int) stringsAt;
+        validate();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: to-binary <shard dir> <file> | to-json <file> <shard dir>");
+        }
+        long start = System.nanoTime();
+        switch (args[0]) {
+            case "to-binary" -> fromShards(new SnapshotShards(Path.of(args[1])), Path.of(args[2]));
+            case "to-json" -> {
+                try (BinarySnapshot snapshot = open(Path.of(args[1]))) {
+                    snapshot.toShards(new SnapshotShards(Path.of(args[2])));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown command " + args[0]);
+        }
+        System.out.printf("Converted in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    public static void fromShards(SnapshotShards shards, Path file) throws IOException {
+        SnapshotShards.Manifest manifest = shards.readManifest();
+        if (manifest == null) throw new IOException("No complete snapshot in " + shards.getDir());
+        TreeMap<Integer, SnapshotShards.ItemRecord> items = new TreeMap<>();
+        TreeMap<Integer, SnapshotShards.OwnerRecord> owners = new TreeMap<>();
+        shards.readRecords(manifest, items, owners);
+        write(file, new ArrayList<>(owners.values()), new ArrayList<>(items.values()));
+    }
+
+    // Straight from the records, so owner links don't have to be rebuilt first. They are in id order, so each
+    // shard is written as soon as its last record is read and only one shard's records are held at a time.
+    public void toShards(SnapshotShards shards) throws IOException {
+        Map<Integer, Long> itemShards = new HashMap<>();
+        List<SnapshotShards.ItemRecord> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            SnapshotShards.ItemRecord record = itemRecord(i);
+            int shard = SnapshotShards.shardOf(record.id());
+            if (!items.isEmpty() && SnapshotShards.shardOf(items.get(0).id()) != shard) {
+                writeItemShard(shards, items, itemShards);
+            }
+            items.add(record);
+        }
+        writeItemShard(shards, items, itemShards);
+        Map<Integer, Long> ownerShards = new HashMap<>();
+        List<SnapshotShards.OwnerRecord> owners = new ArrayList<>();
+        for (int i = 0; i < ownerCount; i++) {
+            SnapshotShards.OwnerRecord record = ownerRecord(i);
+            int shard = SnapshotShards.shardOf(record.id());
+            if (!owners.isEmpty() && SnapshotShards.shardOf(owners.get(0).id()) != shard) {
+                writeOwnerShard(shards, owners, ownerShards);
+            }
+            owners.add(record);
+        }
+        writeOwnerShard(shards, owners, ownerShards);
+        shards.writeManifest(new SnapshotShards.Manifest(1, Long.MAX_VALUE, 0, itemShards, ownerShards, 0, 0)); // no ledger to cut back
+    }
+
+    private static void writeItemShard(SnapshotShards shards, List<SnapshotShards.ItemRecord> records,
+                                       Map<Integer, Long> written) throws IOException {
+        if (records.isEmpty()) return;
+        int shard = SnapshotShards.shardOf(records.get(0).id());
+        shards.writeItems(shard, records);
+        written.put(shard, 1L);
+        records.clear();
+    }
+
+    private static void writeOwnerShard(SnapshotShards shards, List<SnapshotShards.OwnerRecord> records,
+                                        Map<Integer, Long> written) throws IOException {
+        if (records.isEmpty()) return;
+        int shard = SnapshotShards.shardOf(records.get(0).id());
+        shards.writeOwners(shard, records);
+        written.put(shard, 1L);
+        records.clear();
+    }
+
+    public static BinarySnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new BinarySnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getOwnerCount() {
+        return ownerCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    // the entity at a position in id order; owner links are left out (see readAll)
+    public Owner owner(int index) {
+        int at = ownersAt + index * OWNER_BYTES;
+        Owner owner = new Owner(string(buffer.getInt(at + 4)));
+        owner.setId(buffer.getInt(at));
+        return owner;
+    }
+
+    public Item item(int index) {
+        SnapshotShards.ItemRecord record = itemRecord(index);
+        Item item = new Item(record.name(), record.description());
+        item.setId(record.id());
+        item.setCondition(record.condition());
+        item.setArchivedHistory(record.archivedHistory());
+        item.setHistory(new ArrayList<>(record.history()));
+        return item;
+    }
+
+    public SnapshotShards.OwnerRecord ownerRecord(int index) {
+        int at = ownersAt + index * OWNER_BYTES;
+        return new SnapshotShards.OwnerRecord(buffer.getInt(at), string(buffer.getInt(at + 4)));
+    }
+
+    public SnapshotShards.ItemRecord itemRecord(int index) {
+        int at = itemsAt + index * ITEM_BYTES;
+        int first = buffer.getInt(at + 24);
+        int count = buffer.getInt(at + 28);
+        List<Transaction> history = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            history.add(transaction(i));
+        }
+        return new SnapshotShards.ItemRecord(buffer.getInt(at), string(buffer.getInt(at + 4)), string(buffer.getInt(at + 8)),
+                buffer.getInt(at + 12), buffer.getInt(at + 16), buffer.getInt(at + 20), history);
+    }
+
+    public int itemOwnerId(int index) {
+        return buffer.getInt(itemsAt + index * ITEM_BYTES + 12);
+    }
+
+    public Owner findOwner(int id) {
+        int index = search(ownersAt, OWNER_BYTES, ownerCount, id);
+        return index >= 0 ? owner(index) : null;
+    }
+
+    public Item findItem(int id) {
+        int index = search(itemsAt, ITEM_BYTES, itemCount, id);
+        return index >= 0 ? item(index) : null;
+    }
+
+    // decodes everything and rebuilds the owner links, for a store that wants it all in memory
+    public List<Owner> readAll(List<Item> itemsOut) {
+        Map<Integer, Owner> owners = new HashMap<>();
+        List<Owner> ownerList = new ArrayList<>(ownerCount);
+        for (int i = 0; i < ownerCount; i++) {
+            Owner owner = owner(i);
+            owners.put(owner.getId(), owner);
+            ownerList.add(owner);
+        }
+        for (int i = 0; i < itemCount; i++) {
+            Item item = item(i);
+            Owner owner = owners.get(itemOwnerId(i));
+            if (owner != null) {
+                owner.addItem(item);
+            }
+            itemsOut.add(item);
+        }
+        return ownerList;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // written to a temp file and renamed, like the other snapshot files
+    public static void write(Path file, List<SnapshotShards.OwnerRecord> owners, List<SnapshotShards.ItemRecord> items)
+            throws IOException {
+        List<SnapshotShards.OwnerRecord> sortedOwners = new ArrayList<>(owners);
+        sortedOwners.sort(Comparator.comparingInt(SnapshotShards.OwnerRecord::id));
+        List<SnapshotShards.ItemRecord> sortedItems = new ArrayList<>(items);
+        sortedItems.sort(Comparator.comparingInt(SnapshotShards.ItemRecord::id));
+
+        Strings strings = new Strings();
+        ByteArrayOutputStream transactionBytes = new ByteArrayOutputStream();
+        DataOutputStream transactions = new DataOutputStream(transactionBytes);
+        int transactionCount = 0;
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            // item records need the string and transaction offsets, so build those sections first
+            ByteArrayOutputStream itemBytes = new ByteArrayOutputStream(sortedItems.size() * ITEM_BYTES);
+            DataOutputStream itemOut = new DataOutputStream(itemBytes);
+            for (SnapshotShards.ItemRecord item : sortedItems) {
+                List<Transaction> history = item.history();
+                itemOut.writeInt(item.id());
+                itemOut.writeInt(strings.add(item.name()));
+                itemOut.writeInt(strings.add(item.description()));
+                itemOut.writeInt(item.ownerId());
+                itemOut.writeInt(item.condition());
+                itemOut.writeInt(item.archivedHistory());
+                itemOut.writeInt(transactionCount);
+                itemOut.writeInt(history.size());
+                for (Transaction transaction : history) {
+                    transactions.writeByte(transaction.getKind().ordinal());
+                    transactions.writeBoolean(transaction.isHitMax());
+                    transactions.writeShort(0);
+                    transactions.writeInt(transaction.getAmount());
+                    transactions.writeLong(transaction.getEpochSecond());
+                    transactions.writeInt(transaction.getItemId());
+                    transactions.writeInt(transaction.getToOwnerId());
+                    transactions.writeInt(transaction.getFromOwnerId());
+                    transactions.writeInt(transaction.getKind() == TransactionKind.OTHER ? strings.add(transaction.getType()) : -1);
+                    transactionCount++;
+                }
+            }
+            ByteArrayOutputStream ownerBytes = new ByteArrayOutputStream(sortedOwners.size() * OWNER_BYTES);
+            DataOutputStream ownerOut = new DataOutputStream(ownerBytes);
+            for (SnapshotShards.OwnerRecord owner : sortedOwners) {
+                ownerOut.writeInt(owner.id());
+                ownerOut.writeInt(strings.add(owner.name()));
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sortedOwners.size());
+            out.writeInt(sortedItems.size());
+            out.writeInt(transactionCount);
+            out.writeInt(strings.bytes.size());
+            ownerBytes.writeTo(out);
+            itemBytes.writeTo(out);
+            transactionBytes.writeTo(out);
+            strings.bytes.writeTo(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Transaction transaction(int index) {
+        int at = transactionsAt + index * TRANSACTION_BYTES;
+        TransactionKind kind = KINDS[buffer.get(at)];
+        Transaction transaction = new Transaction(kind, buffer.getInt(at + 4), buffer.get(at + 1) != 0,
+                buffer.getLong(at + 8), buffer.getInt(at + 16), buffer.getInt(at + 20), buffer.getInt(at + 24));
+        if (kind == TransactionKind.OTHER) {
+            transaction.setType(string(buffer.getInt(at + 28)));
+        }
+        return transaction;
+    }
+
+    private String string(int offset) {
+        if (offset < 0) return null;
+        int at = stringsAt + offset;
+        byte[] bytes = new byte[buffer.getInt(at)];
+        buffer.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // everything the accessors rely on: ids ascending (for search), string offsets and lengths inside the
+    // string table, history ranges inside the transaction section, known transaction kinds
+    private void validate() throws IOException {
+        int previous = Integer.MIN_VALUE;
+        for (int i = 0; i < ownerCount; i++) {
+            int at = ownersAt + i * OWNER_BYTES;
+            previous = checkId(buffer.getInt(at), previous, i);
+            checkString(buffer.getInt(at + 4));
+        }
+        previous = Integer.MIN_VALUE;
+        for (int i = 0; i < itemCount; i++) {
+            int at = itemsAt + i * ITEM_BYTES;
+            previous = checkId(buffer.getInt(at), previous, i);
+            checkString(buffer.getInt(at + 4));
+            checkString(buffer.getInt(at + 8));
+            int first = buffer.getInt(at + 24);
+            int count = buffer.getInt(at + 28);
+            if (first < 0 || count < 0 || (long) first + count > transactionCount) {
+                throw new IOException("Item record " + i + " points outside the transactions");
+            }
+        }
+        for (int i = 0; i < transactionCount; i++) {
+            int at = transactionsAt + i * TRANSACTION_BYTES;
+            int kind = buffer.get(at);
+            if (kind < 0 || kind >= KINDS.length) {
+                throw new IOException("Transaction record " + i + " has an unknown kind");
+            }
+            if (KINDS[kind] == TransactionKind.OTHER) {
+                checkString(buffer.getInt(at + 28));
+            }
+        }
+    }
+
+    private static int checkId(int id, int previous, int index) throws IOException {
+        if (index > 0 && id <= previous) {
+            throw new IOException("Records are not in id order at " + index);
+        }
+        return id;
+    }
+
+    private void checkString(int offset) throws IOException {
+        if (offset == -1) return;
+        long stringBytes = buffer.limit() - (long) stringsAt;
+        if (offset < 0 || offset + 4L > stringBytes) {
+            throw new IOException("String offset " + offset + " is outside the string table");
+        }
+        int length = buffer.getInt(stringsAt + offset);
+        if (length < 0 || offset + 4L + length > stringBytes) {
+            throw new IOException("String at " + offset + " runs past the string table");
+        }
+    }
+
+    private int search(int sectionAt, int recordBytes, int count, int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buffer.getInt(sectionAt + mid * recordBytes);
+            if (midId < id) low = mid + 1;
+            else if (midId > id) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    // each distinct string is stored once; names repeat a lot across items
+    private static final class Strings {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private int add(String value) throws IOException {
+            if (value == null) return -1;
+            Integer known = offsets.get(value);
+            if (known != null) return known;
+            int offset = bytes.size();
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+            offsets.put(value, offset);
+            return offset;
+        }
+    }
+}
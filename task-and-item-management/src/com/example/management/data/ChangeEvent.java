@@ -0,0 +1,36 @@
+package com.example.management.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class ChangeEvent<T> {
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    private final Type type;
+    private final T entity;
+
+    public ChangeEvent(Type type, T entity) {
+        this.type = type;
+        this.entity = entity;
+    }
+
+    public static <T> ChangeEvent<T> added(T entity) { return new ChangeEvent<>(Type.ADDED, entity); }
+    public static <T> ChangeEvent<T> updated(T entity) { return new ChangeEvent<>(Type.UPDATED, entity); }
+    public static <T> ChangeEvent<T> removed(T entity) { return new ChangeEvent<>(Type.REMOVED, entity); }
+
+    public static <T> List<ChangeEvent<T>> allUpdated(Collection<T> entities) {
+        List<ChangeEvent<T>> changes = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            changes.add(updated(entity));
+        }
+        return changes;
+    }
+
+    public Type getType() { return type; }
+    public T getEntity() { return entity; }
+}
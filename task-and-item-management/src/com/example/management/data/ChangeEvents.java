@@ -0,0 +1,61 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Writers fire while they still hold the locks of the entities they changed, so the events for one entity
+// arrive in the order its changes were made (a REMOVED can't overtake the UPDATED before it). Indexes and
+// listeners therefore must not block or take entity locks; the views hand everything to the FX thread.
+public class ChangeEvents {
+    private static ChangeEvents instance;
+
+    // listeners get one list per operation, so a batch is a single notification
+    private final List<Consumer<List<ChangeEvent<Item>>>> itemListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<ChangeEvent<Owner>>>> ownerListeners = new CopyOnWriteArrayList<>();
+    // indexes hear about a batch before any listener, so a view reading an index sees the batch applied
+    // no matter which was created first
+    private final List<Consumer<List<ChangeEvent<Item>>>> itemIndexes = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<ChangeEvent<Owner>>>> ownerIndexes = new CopyOnWriteArrayList<>();
+
+    private ChangeEvents() {
+
+    }
+
+    public static synchronized ChangeEvents getInstance() {
+        if (instance == null) {
+            instance = new ChangeEvents();
+        }
+        return instance;
+    }
+
+    public void addItemListener(Consumer<List<ChangeEvent<Item>>> listener) { itemListeners.add(listener); }
+    public void removeItemListener(Consumer<List<ChangeEvent<Item>>> listener) { itemListeners.remove(listener); }
+    public void addOwnerListener(Consumer<List<ChangeEvent<Owner>>> listener) { ownerListeners.add(listener); }
+    public void removeOwnerListener(Consumer<List<ChangeEvent<Owner>>> listener) { ownerListeners.remove(listener); }
+    public void addItemIndex(Consumer<List<ChangeEvent<Item>>> index) { itemIndexes.add(index); }
+    public void addOwnerIndex(Consumer<List<ChangeEvent<Owner>>> index) { ownerIndexes.add(index); }
+
+    public void fireItemChanges(List<ChangeEvent<Item>> changes) {
+        if (changes.isEmpty()) return;
+        for (Consumer<List<ChangeEvent<Item>>> index : itemIndexes) {
+            index.accept(changes);
+        }
+        for (Consumer<List<ChangeEvent<Item>>> listener : itemListeners) {
+            listener.accept(changes);
+        }
+    }
+
+    public void fireOwnerChanges(List<ChangeEvent<Owner>> changes) {
+        if (changes.isEmpty()) return;
+        for (Consumer<List<ChangeEvent<Owner>>> index : ownerIndexes) {
+            index.accept(changes);
+        }
+        for (Consumer<List<ChangeEvent<Owner>>> listener : ownerListeners) {
+            listener.accept(changes);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Role;
+import com.example.management.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The owners and items by id. Safe to call from any thread: the id tables take care of their own locking
+// (lookups and listings are optimistic reads), and ids come from counters that only go up.
+// Changes to the entities themselves (who owns what, history, condition) are the caller's to lock, through
+// EntityLocks, as the controllers do.
+public class DataStore {
+    private static DataStore instance;
+
+    private final IdTable<Item> items = new IdTable<>();
+    private final IdTable<Owner> owners = new IdTable<>();
+    private final AtomicInteger nextItemId = new AtomicInteger(1);
+    private final AtomicInteger nextOwnerId = new AtomicInteger(1);
+
+    // the built-in accounts; UserDirectory moves each one to a hashed entry the first time it logs in
+    private final List<User> users = List.of(
+            new User("admin", "admin", Role.ADMIN),
+            new User("user", "user", Role.USER));
+    private volatile User currentUser;
+
+    private DataStore() {
+
+    }
+
+    public static synchronized DataStore getInstance() {
+        if (instance == null) {
+            instance = new DataStore();
+        }
+        return instance;
+    }
+
+    public Collection<Item> findAllItems() {
+        return this.items.values();
+    }
+
+    public Collection<Owner> findAllOwners() {
+        return this.owners.values();
+    }
+
+    public Item findItemById(int id) {
+        return this.items.get(id);
+    }
+
+    public Owner findOwnersById(int id) {
+        return this.owners.get(id);
+    }
+
+    public Item addItem(Item item) {
+        item.setId(this.nextItemId.getAndIncrement());
+        this.items.putIfAbsent(item.getId(), item);
+        return item;
+    }
+
+    public Owner addOwner(Owner owner) {
+        owner.setId(this.nextOwnerId.getAndIncrement());
+        this.owners.putIfAbsent(owner.getId(), owner);
+        return owner;
+    }
+
+    // Replaces everything with entities loaded from a save, keeping their ids (links and history refer to them).
+    // New ids then start at the saved counters, or past the highest loaded id if that is higher, so an id
+    // is never used twice: the ledger and the history archive keep what they have under it.
+    // Only for startup, before anything else uses the store.
+    public void restore(Collection<Owner> owners, Collection<Item> items, int nextOwnerId, int nextItemId) {
+        this.items.clear();
+        this.owners.clear();
+        this.nextOwnerId.accumulateAndGet(nextOwnerId, Math::max);
+        this.nextItemId.accumulateAndGet(nextItemId, Math::max);
+        for (Owner owner : owners) {
+            this.owners.putIfAbsent(owner.getId(), owner);
+            this.nextOwnerId.accumulateAndGet(owner.getId() + 1, Math::max);
+        }
+        for (Item item : items) {
+            this.items.putIfAbsent(item.getId(), item);
+            this.nextItemId.accumulateAndGet(item.getId() + 1, Math::max);
+        }
+    }
+
+    // the ids the next addOwner/addItem will hand out
+    public int getNextOwnerId() {
+        return this.nextOwnerId.get();
+    }
+
+    public int getNextItemId() {
+        return this.nextItemId.get();
+    }
+
+    // condition below 10 can't be assigned
+    public boolean assignItemToOwner(int ownerId, int itemId) {
+        Owner owner = findOwnersById(ownerId);
+        Item item = findItemById(itemId);
+        if (owner == null || item == null || item.getCondition() < 10) return false;
+        owner.addItem(item);
+        return true;
+    }
+
+    public boolean unassignItemFromOwner(int ownerId, int itemId) {
+        Owner owner = findOwnersById(ownerId);
+        Item item = findItemById(itemId);
+        if (owner == null || item == null) return false;
+        return owner.removeItem(item);
+    }
+
+    public void deleteItemById(int id) {
+        Item item = findItemById(id);
+        if (item == null || !this.items.remove(id, item)) return;
+        Owner owner = item.getOwner();
+        if (owner != null) {
+            owner.removeItem(item);
+        }
+    }
+
+    public void deleteOwnerById(int id) {
+        Owner owner = findOwnersById(id);
+        if (owner == null || !this.owners.remove(id, owner)) return;
+        owner.removeAllItems();
+    }
+
+    public User authenticate(String username, String password) {
+        for (User user : this.users) {
+            if (user.getUsername().equals(username) && user.verifyPassword(password)) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    public User getCurrentUser() {
+        return this.currentUser;
+    }
+
+    public void setCurrentUser(User currentUser) {
+        this.currentUser = currentUser;
+    }
+
+    // Saving is the autosave's job now (Storage); this just writes out what changed since its last run.
+    public void saveData() {
+        Autosave.getInstance().flush();
+    }
+}
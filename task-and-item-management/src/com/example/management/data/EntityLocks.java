@@ -0,0 +1,150 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Striped write locks, one stripe per id bucket, so writes to different entities don't queue behind each
+// other. Lock order is always owner stripes (lowest index first) and then the item stripe; every
+// operation that touches an Owner and an Item goes through here, so two writers can never wait on each other.
+public class EntityLocks {
+    private static final int STRIPES = 64; // power of two
+
+    private static EntityLocks instance;
+
+    private final ReentrantLock[] ownerStripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock[] itemStripes = new ReentrantLock[STRIPES];
+
+    private EntityLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            ownerStripes[i] = new ReentrantLock();
+            itemStripes[i] = new ReentrantLock();
+        }
+    }
+
+    public static synchronized EntityLocks getInstance() {
+        if (instance == null) {
+            instance = new EntityLocks();
+        }
+        return instance;
+    }
+
+    public <T> T withOwner(int ownerId, Supplier<T> action) {
+        ReentrantLock lock = ownerStripes[stripe(ownerId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // for changes that release all of an owner's items at once (deleting the owner)
+    public <T> T withOwnerAndAllItems(int ownerId, Supplier<T> action) {
+        return withOwner(ownerId, () -> {
+            for (ReentrantLock lock : itemStripes) {
+                lock.lock();
+            }
+            try {
+                return action.get();
+            } finally {
+                for (int i = STRIPES - 1; i >= 0; i--) {
+                    itemStripes[i].unlock();
+                }
+            }
+        });
+    }
+
+    // Holds the item, the owner it currently has and ownerId (Transaction.NONE for no second owner).
+    // The current owner is read before locking, so if another writer moved the item meanwhile, retry.
+    public <T> T withItem(Item item, int ownerId, Supplier<T> action) {
+        while (true) {
+            Owner current = item.getOwner();
+            int first = ownerId != Transaction.NONE ? stripe(ownerId) : -1;
+            int second = current != null ? stripe(current.getId()) : -1;
+            if (first > second) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            ReentrantLock itemLock = itemStripes[stripe(item.getId())];
+            lockOwner(first);
+            if (second != first) lockOwner(second);
+            itemLock.lock();
+            try {
+                if (item.getOwner() == current) {
+                    return action.get();
+                }
+            } finally {
+                itemLock.unlock();
+                if (second != first) unlockOwner(second);
+                unlockOwner(first);
+            }
+        }
+    }
+
+    // One section for a whole batch: holds ownerId, every owner the items currently have and the items'
+    // stripes, each stripe once. The owners are read before locking, so if another writer moved one of
+    // the items meanwhile, retry.
+    public <T> T withItems(Collection<Item> items, int ownerId, Supplier<T> action) {
+        while (true) {
+            boolean[] owners = new boolean[STRIPES];
+            boolean[] itemStripe = new boolean[STRIPES];
+            if (ownerId != Transaction.NONE) owners[stripe(ownerId)] = true;
+            Map<Item, Owner> current = new IdentityHashMap<>();
+            for (Item item : items) {
+                Owner owner = item.getOwner();
+                current.put(item, owner);
+                if (owner != null) owners[stripe(owner.getId())] = true;
+                itemStripe[stripe(item.getId())] = true;
+            }
+            lock(ownerStripes, owners);
+            lock(itemStripes, itemStripe);
+            try {
+                if (unchanged(current)) {
+                    return action.get();
+                }
+            } finally {
+                unlock(itemStripes, itemStripe);
+                unlock(ownerStripes, owners);
+            }
+        }
+    }
+
+    private static boolean unchanged(Map<Item, Owner> current) {
+        for (Map.Entry<Item, Owner> entry : current.entrySet()) {
+            if (entry.getKey().getOwner() != entry.getValue()) return false;
+        }
+        return true;
+    }
+
+    private static void lock(ReentrantLock[] stripes, boolean[] wanted) {
+        for (int i = 0; i < STRIPES; i++) {
+            if (wanted[i]) stripes[i].lock();
+        }
+    }
+
+    private static void unlock(ReentrantLock[] stripes, boolean[] wanted) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if (wanted[i]) stripes[i].unlock();
+        }
+    }
+
+    private void lockOwner(int stripe) {
+        if (stripe >= 0) ownerStripes[stripe].lock();
+    }
+
+    private void unlockOwner(int stripe) {
+        if (stripe >= 0) ownerStripes[stripe].unlock();
+    }
+
+    private static int stripe(int id) {
+        return (id ^ (id >>> 16)) & (STRIPES - 1);
+    }
+}
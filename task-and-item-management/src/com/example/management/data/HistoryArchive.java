@@ -0,0 +1,275 @@
+package com.example.management.data;
+
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
+import com.example.management.model.Item;
+import com.example.management.model.Transaction;
+import com.example.management.model.TransactionKind;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+// Keeps only the newest part of each Item's history in memory and moves older entries into fixed-size,
+// write-once segment files: <dir>/<itemId>/<segmentNo>.json. Item.archivedHistory says how many entries
+// the segments hold, so a segment written after the last snapshot save is ignored and later overwritten.
+//
+// Writers call record() under the item's lock; the segment writes happen on the archive's own thread, which
+// only takes the item's lock to copy the entries out and, once the file is written, to drop them from memory.
+// A deleted item's segments stay until a snapshot without the item has been saved (purge()); if one is still
+// missing when read, its entries come back as placeholders rather than failing the whole page.
+public class HistoryArchive {
+    public static final int SEGMENT_SIZE = 100;
+    private static final int MAX_IN_MEMORY = 2 * SEGMENT_SIZE;
+    private static final int CACHED_SEGMENTS = 8;
+    private static final String UNAVAILABLE = "Archived entry unavailable";
+    private static final Timer SPILL_TIMER = Metrics.timer("HistoryArchive.spillSegment");
+
+    private static HistoryArchive instance;
+
+    private final Path dir;
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final EntityLocks locks = EntityLocks.getInstance();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "history-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Item> spilling = ConcurrentHashMap.newKeySet(); // has a spill queued or running
+    private final Set<Integer> deleted = ConcurrentHashMap.newKeySet(); // segments not purged yet
+    private final Map<Path, List<Transaction>> segments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, List<Transaction>> eldest) {
+            return size() > CACHED_SEGMENTS;
+        }
+    };
+
+    private record Tail(int archived, int recent, List<Transaction> newest) { }
+
+    private HistoryArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    public static synchronized HistoryArchive getInstance() {
+        if (instance == null) {
+            instance = new HistoryArchive(Storage.dataPath("management.history.dir", "history"));
+        }
+        return instance;
+    }
+
+    // the caller holds the item's lock
+    public Transaction record(Item item, Transaction transaction) {
+        int historyPosition = item.getArchivedHistory() + item.getHistory().size();
+        item.addTransaction(transaction);
+        int ledgerPosition = TransactionLedger.getInstance().append(transaction);
+        Journal journal = Journal.getInstance();
+        if (journal != null) {
+            journal.transaction(historyPosition, ledgerPosition, transaction);
+        }
+        if (item.getHistory().size() > MAX_IN_MEMORY && spilling.add(item)) {
+            writer.execute(() -> spill(item));
+        }
+        return transaction;
+    }
+
+    public int size(Item item) {
+        return locks.withItem(item, Transaction.NONE, () -> item.getArchivedHistory() + item.getHistory().size());
+    }
+
+    // newest first; index 0 is the latest transaction
+    public List<Transaction> page(Item item, int offset, int limit) {
+        int from = Math.max(0, offset);
+        // what is in memory is copied under the item's lock; segments are read after it is released
+        Tail tail = locks.withItem(item, Transaction.NONE, () -> {
+            List<Transaction> recent = item.getHistory();
+            int to = (int) Math.min(recent.size(), (long) from + Math.max(0, limit));
+            List<Transaction> newest = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                newest.add(recent.get(recent.size() - 1 - i));
+            }
+            return new Tail(item.getArchivedHistory(), recent.size(), newest);
+        });
+        int to = (int) Math.min(tail.archived() + tail.recent(), (long) from + Math.max(0, limit));
+        List<Transaction> page = new ArrayList<>(Math.max(0, to - from));
+        page.addAll(tail.newest());
+        for (int i = Math.max(from, tail.recent()); i < to; i++) {
+            int archived = tail.archived() - 1 - (i - tail.recent()); // 0 is the oldest
+            page.add(segment(item, archived / SEGMENT_SIZE).get(archived % SEGMENT_SIZE));
+        }
+        return page;
+    }
+
+    // The whole history, oldest first, read straight from the segment files: no cache and no lock, for the
+    // ledger's first-run seeding, which runs before anything records. Unreadable segments are left out.
+    public List<Transaction> readAll(Item item) {
+        List<Transaction> all = new ArrayList<>(item.getArchivedHistory() + item.getHistory().size());
+        for (int segmentNo = 0; segmentNo * SEGMENT_SIZE < item.getArchivedHistory(); segmentNo++) {
+            try {
+                all.addAll(read(segmentFile(item.getId(), segmentNo)));
+            } catch (IOException e) {
+                System.err.println("Skipping archived history of item " + item.getId() + ": " + e.getMessage());
+            }
+        }
+        all.addAll(item.getHistory());
+        return all;
+    }
+
+    // the files stay until purge(), since the saved snapshot may still list the item
+    public void delete(int itemId) {
+        deleted.add(itemId);
+        Path itemDir = dir.resolve(Integer.toString(itemId));
+        synchronized (segments) {
+            segments.keySet().removeIf(path -> path.startsWith(itemDir));
+        }
+    }
+
+    public Set<Integer> deletedItems() {
+        return Set.copyOf(deleted);
+    }
+
+    // Called once a saved snapshot no longer has these items. Runs on the archive's thread, after any spill
+    // that was already queued for them.
+    public void purge(Collection<Integer> itemIds) {
+        List<Integer> ids = List.copyOf(itemIds);
+        if (ids.isEmpty()) return;
+        writer.execute(() -> {
+            for (int itemId : ids) {
+                if (deleteFiles(itemId)) deleted.remove(itemId);
+            }
+        });
+    }
+
+    // segment directories of items the store doesn't have, left by a run that ended before purging them
+    public void purgeOrphans(Collection<Item> items) {
+        if (!Files.isDirectory(dir)) return;
+        Set<Integer> known = new HashSet<>();
+        items.forEach(item -> known.add(item.getId()));
+        List<Integer> orphans = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(dir)) {
+            for (Path entry : entries.filter(Files::isDirectory).toList()) {
+                try {
+                    int itemId = Integer.parseInt(entry.getFileName().toString());
+                    if (!known.contains(itemId)) orphans.add(itemId);
+                } catch (NumberFormatException e) {
+                    // not a segment directory
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not list archived history: " + e.getMessage());
+        }
+        purge(orphans);
+    }
+
+    private boolean deleteFiles(int itemId) {
+        Path itemDir = dir.resolve(Integer.toString(itemId));
+        if (!Files.isDirectory(itemDir)) return true;
+        try (Stream<Path> files = Files.walk(itemDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not delete archived history of item " + itemId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // on the archive's thread: one segment at a time, the file written with no lock held
+    private void spill(Item item) {
+        boolean caughtUp = false;
+        try {
+            while (true) {
+                List<Transaction> oldest = locks.withItem(item, Transaction.NONE,
+                        () -> needsSpill(item) ? List.copyOf(item.getHistory().subList(0, SEGMENT_SIZE)) : null);
+                if (oldest == null) {
+                    caughtUp = true;
+                    return;
+                }
+                int segmentNo = item.getArchivedHistory() / SEGMENT_SIZE; // only this thread changes it
+                Path file = segmentFile(item.getId(), segmentNo);
+                long start = SPILL_TIMER.start();
+                try {
+                    Files.createDirectories(file.getParent());
+                    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                    mapper.writeValue(tmp.toFile(), oldest);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // keep everything in memory; the next transaction retries
+                    System.err.println("Could not archive history of item " + item.getId() + ": " + e.getMessage());
+                    return;
+                } finally {
+                    SPILL_TIMER.stop(start);
+                }
+                // new entries only ever go on the end, so the first SEGMENT_SIZE are still the ones written
+                locks.withItem(item, Transaction.NONE, () -> {
+                    item.archiveOldestHistory(SEGMENT_SIZE);
+                    return null;
+                });
+                synchronized (segments) {
+                    segments.put(file, oldest);
+                }
+            }
+        } finally {
+            spilling.remove(item);
+            // a record() that came in after the last check found the spill still marked and didn't queue one
+            if (caughtUp && locks.withItem(item, Transaction.NONE, () -> needsSpill(item)) && spilling.add(item)) {
+                writer.execute(() -> spill(item));
+            }
+        }
+    }
+
+    // under the item's lock; a deleted item keeps its history in memory until it is collected
+    private static boolean needsSpill(Item item) {
+        return item.getHistory().size() > MAX_IN_MEMORY && DataStore.getInstance().findItemById(item.getId()) == item;
+    }
+
+    private List<Transaction> segment(Item item, int segmentNo) {
+        Path file = segmentFile(item.getId(), segmentNo);
+        synchronized (segments) {
+            List<Transaction> segment = segments.get(file);
+            if (segment != null) return segment;
+        }
+        List<Transaction> segment;
+        try {
+            segment = read(file);
+        } catch (IOException e) {
+            System.err.println("Could not read archived history of item " + item.getId() + ": " + e.getMessage());
+            segment = placeholders(item.getId());
+        }
+        synchronized (segments) {
+            segments.put(file, segment);
+        }
+        return segment;
+    }
+
+    private List<Transaction> read(Path file) throws IOException {
+        return mapper.readValue(file.toFile(), new TypeReference<List<Transaction>>() { });
+    }
+
+    private static List<Transaction> placeholders(int itemId) {
+        Transaction placeholder = new Transaction(TransactionKind.OTHER, 0, false, 0, itemId, Transaction.NONE, Transaction.NONE);
+        placeholder.setType(UNAVAILABLE);
+        return Collections.nCopies(SEGMENT_SIZE, placeholder);
+    }
+
+    private Path segmentFile(int itemId, int segmentNo) {
+        return dir.resolve(Integer.toString(itemId)).resolve(segmentNo + ".json");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// Entities sorted by id, so a page or a row position is a tree lookup instead of a walk over the store.
+// Every change publishes a new immutable version; readers just read the current one, and snapshot() hands
+// out a version that stays consistent for as long as the caller keeps it (saves, exports, rebuilds).
+public class IdOrderIndex<T> {
+    private static IdOrderIndex<Item> items;
+    private static IdOrderIndex<Owner> owners;
+
+    private final ToIntFunction<T> idOf;
+    private volatile PersistentIdTree<T> current;
+
+    private IdOrderIndex(Collection<T> initial, ToIntFunction<T> idOf) {
+        this.idOf = idOf;
+        PersistentIdTree<T> tree = PersistentIdTree.empty();
+        for (T entity : initial) {
+            tree = tree.with(idOf.applyAsInt(entity), entity);
+        }
+        this.current = tree;
+    }
+
+    public static synchronized IdOrderIndex<Item> items() {
+        if (items == null) {
+            items = new IdOrderIndex<>(DataStore.getInstance().findAllItems(), Item::getId);
+            ChangeEvents.getInstance().addItemIndex(items::applyChanges);
+        }
+        return items;
+    }
+
+    public static synchronized IdOrderIndex<Owner> owners() {
+        if (owners == null) {
+            owners = new IdOrderIndex<>(DataStore.getInstance().findAllOwners(), Owner::getId);
+            ChangeEvents.getInstance().addOwnerIndex(owners::applyChanges);
+        }
+        return owners;
+    }
+
+    // writers are serialized here; readers never wait
+    private synchronized void applyChanges(List<ChangeEvent<T>> changes) {
+        PersistentIdTree<T> next = current;
+        for (ChangeEvent<T> change : changes) {
+            switch (change.getType()) {
+                case ADDED -> next = next.with(idOf.applyAsInt(change.getEntity()), change.getEntity());
+                case REMOVED -> next = next.without(idOf.applyAsInt(change.getEntity()));
+                case UPDATED -> { } // order is by id, which never changes
+            }
+        }
+        current = next; // the whole batch becomes visible at once
+    }
+
+    // O(1); old versions are garbage once the last snapshot holding them is dropped
+    public PersistentIdTree<T> snapshot() {
+        return current;
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    // number of indexed entities with a smaller id, i.e. the row the entity has (or would have)
+    public int positionOf(int id) {
+        return current.positionOf(id);
+    }
+
+    public List<T> page(int offset, int limit, boolean descending) {
+        return current.page(offset, limit, descending);
+    }
+}
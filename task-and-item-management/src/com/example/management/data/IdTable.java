@@ -0,0 +1,191 @@
+package com.example.management.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+// id -> entity with the ids kept as ints (linear probing, no Integer boxing), for DataStore.
+// Writers take the write lock. Lookups and listings read optimistically and only take the read lock when
+// a writer got in meanwhile, so readers never block each other and rarely block at all.
+final class IdTable<T> {
+    private static final int MIN_CAPACITY = 16; // power of two
+
+    private final StampedLock lock = new StampedLock();
+    // keys and values are swapped as a pair on resize, so an optimistic reader always sees matching arrays
+    private Slots slots = new Slots(MIN_CAPACITY);
+    private int size;
+
+    private static final class Slots {
+        private final int[] keys;
+        private final Object[] values; // null marks a free slot, so every int is a valid key
+
+        private Slots(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    T get(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T found = find(slots, id);
+            if (lock.validate(stamp)) return found;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(slots, id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        if (stamp != 0 && lock.validate(stamp)) return current;
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // a copy, in no particular order
+    List<T> values() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            List<T> copy = copy(slots, size);
+            if (copy != null && lock.validate(stamp)) return Collections.unmodifiableList(copy);
+        }
+        stamp = lock.readLock();
+        try {
+            return Collections.unmodifiableList(copy(slots, size));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // false (and nothing changes) if the id is taken
+    boolean putIfAbsent(int id, T value) {
+        long stamp = lock.writeLock();
+        try {
+            Slots current = slots;
+            int mask = current.keys.length - 1;
+            int i = index(id, mask);
+            while (current.values[i] != null) {
+                if (current.keys[i] == id) return false;
+                i = (i + 1) & mask;
+            }
+            current.keys[i] = id;
+            current.values[i] = value;
+            if (++size * 2 > current.keys.length) {
+                slots = rehash(current, current.keys.length * 2);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // removes id only while it still maps to value
+    boolean remove(int id, T value) {
+        long stamp = lock.writeLock();
+        try {
+            Slots current = slots;
+            int mask = current.keys.length - 1;
+            int i = index(id, mask);
+            while (current.values[i] != null) {
+                if (current.keys[i] == id) {
+                    if (current.values[i] != value) return false;
+                    delete(current, i);
+                    size--;
+                    if (current.keys.length > MIN_CAPACITY && size * 8 < current.keys.length) {
+                        slots = rehash(current, current.keys.length / 2);
+                    }
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            slots = new Slots(MIN_CAPACITY);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Also run without the lock by optimistic readers, which may see a write half done: the probe is bounded
+    // by the table length so it always ends, and whatever it returns is thrown away unless the stamp validates.
+    @SuppressWarnings("unchecked")
+    private static <T> T find(Slots slots, int id) {
+        int mask = slots.keys.length - 1;
+        int i = index(id, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            Object value = slots.values[i];
+            if (value == null) return null;
+            if (slots.keys[i] == id) return (T) value;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // null if the slots changed under an optimistic reader in a way that shows (more values than expected)
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> copy(Slots slots, int expected) {
+        List<T> copy = new ArrayList<>(expected);
+        for (Object value : slots.values) {
+            if (value == null) continue;
+            if (copy.size() == expected) return null;
+            copy.add((T) value);
+        }
+        return copy;
+    }
+
+    // backward-shift deletion: moves later entries of the probe run up so no tombstones are needed
+    private static void delete(Slots slots, int i) {
+        int mask = slots.keys.length - 1;
+        int hole = i;
+        int next = (hole + 1) & mask;
+        while (slots.values[next] != null) {
+            int home = index(slots.keys[next], mask);
+            // the entry at next may fill the hole only if its home slot isn't between the hole and next
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots.keys[hole] = slots.keys[next];
+                slots.values[hole] = slots.values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots.values[hole] = null;
+    }
+
+    private static Slots rehash(Slots from, int capacity) {
+        Slots to = new Slots(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < from.keys.length; j++) {
+            if (from.values[j] == null) continue;
+            int i = index(from.keys[j], mask);
+            while (to.values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            to.keys[i] = from.keys[j];
+            to.values[i] = from.values[j];
+        }
+        return to;
+    }
+
+    private static int index(int id, int mask) {
+        int h = id * 0x9E3779B9; // ids are mostly consecutive; spread them so runs don't cluster
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Prefix matches come from the sorted names, substring matches from postings of every 1-, 2- and 3-character
+// gram of each name, so even a one-letter query only looks at items that contain it.
+// Searches run on background threads (ItemView, the API) while writers fire changes under their entity
+// locks, which must not wait on a search: a writer queues its changes and applies them only if the index is
+// free. Otherwise whoever holds it applies them on the way out, and every search applies what is queued first,
+// so it still sees every change fired before it started.
+public class ItemSearchIndex {
+    private static final int MAX_GRAM = 3;
+
+    private static ItemSearchIndex instance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<List<ChangeEvent<Item>>> pending = new ConcurrentLinkedQueue<>();
+    // guarded by lock
+    private final Map<Integer, Entry> entries = new LinkedHashMap<>();
+    private final TreeMap<String, Postings> byName = new TreeMap<>(); // for prefix matches
+    private final Map<Long, Postings> grams = new HashMap<>();        // for substring matches
+
+    private ItemSearchIndex() {
+        for (Item item : DataStore.getInstance().findAllItems()) {
+            put(item);
+        }
+        ChangeEvents.getInstance().addItemIndex(this::applyChanges);
+    }
+
+    public static synchronized ItemSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new ItemSearchIndex();
+        }
+        return instance;
+    }
+
+    // called by writers: never blocks
+    private void applyChanges(List<ChangeEvent<Item>> changes) {
+        pending.add(changes);
+        drain();
+    }
+
+    // A change queued while someone held the lock is seen by them here after they unlock, or its writer's
+    // tryLock succeeds: one of the two always gets it.
+    private void drain() {
+        while (!pending.isEmpty() && lock.tryLock()) {
+            try {
+                applyPending();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // under the lock
+    private void applyPending() {
+        List<ChangeEvent<Item>> changes;
+        while ((changes = pending.poll()) != null) {
+            apply(changes);
+        }
+    }
+
+    private void apply(List<ChangeEvent<Item>> changes) {
+        for (ChangeEvent<Item> change : changes) {
+            switch (change.getType()) {
+                case ADDED -> index(change.getEntity());
+                case UPDATED -> { // only items still indexed; a late update must not bring back a removed one
+                    Entry entry = entries.get(change.getEntity().getId());
+                    if (entry != null && entry.item == change.getEntity()) index(change.getEntity());
+                }
+                case REMOVED -> unindex(change.getEntity().getId());
+            }
+        }
+    }
+
+    public void put(Item item) {
+        lock.lock();
+        try {
+            applyPending(); // queued changes came first
+            index(item);
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    public void remove(int itemId) {
+        lock.lock();
+        try {
+            applyPending();
+            unindex(itemId);
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    // prefix matches (in name order) come first, then other substring matches (in id order)
+    public List<Item> search(String query, int limit) {
+        lock.lock();
+        try {
+            applyPending();
+            return find(query, limit);
+        } finally {
+            lock.unlock();
+            drain();
+        }
+    }
+
+    private void index(Item item) {
+        String key = normalize(item.getName());
+        Entry entry = entries.get(item.getId());
+        if (entry != null) {
+            if (entry.item == item && entry.key.equals(key)) return; // name unchanged
+            unindex(entry);
+        }
+        entry = new Entry(item, key);
+        entries.put(entry.id, entry);
+        byName.computeIfAbsent(key, k -> new Postings()).add(entry);
+        for (long gram : gramsOf(key)) {
+            grams.computeIfAbsent(gram, k -> new Postings()).add(entry);
+        }
+    }
+
+    private void unindex(int itemId) {
+        Entry entry = entries.remove(itemId);
+        if (entry != null) {
+            unindex(entry);
+        }
+    }
+
+    private List<Item> find(String query, int limit) {
+        String q = normalize(query);
+        List<Item> result = new ArrayList<>(Math.min(limit, 64));
+        if (q.isEmpty() || limit <= 0) return result;
+
+        for (Postings postings : byName.subMap(q, true, q + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < postings.size; i++) {
+                if (result.size() == limit) return result;
+                if (!postings.entries[i].removed) result.add(postings.entries[i].item);
+            }
+        }
+
+        // every match contains all of the query's grams, so the rarest one bounds the candidates
+        int length = Math.min(q.length(), MAX_GRAM);
+        Postings candidates = null;
+        for (int i = 0; i + length <= q.length(); i++) {
+            Postings postings = grams.get(gram(q, i, length));
+            if (postings == null) return result;
+            if (candidates == null || postings.live() < candidates.live()) {
+                candidates = postings;
+            }
+        }
+        for (int i = 0; i < candidates.size && result.size() < limit; i++) {
+            Entry entry = candidates.entries[i];
+            if (!entry.removed && entry.isInfixMatch(q)) result.add(entry.item);
+        }
+        return result;
+    }
+
+    private void unindex(Entry entry) {
+        entry.removed = true;
+        removeFrom(byName, entry.key, entry);
+        for (long gram : gramsOf(entry.key)) {
+            removeFrom(grams, gram, entry);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Postings> map, K key, Entry entry) {
+        Postings postings = map.get(key);
+        if (postings != null && postings.remove(entry) && postings.live() == 0) {
+            map.remove(key);
+        }
+    }
+
+    private static String normalize(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    // each gram once, so a postings never counts the same removal twice
+    private static long[] gramsOf(String key) {
+        int count = 0;
+        long[] grams = new long[MAX_GRAM * key.length()];
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= key.length(); i++) {
+                grams[count++] = gram(key, i, length);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) grams[distinct++] = grams[i];
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // the length goes in the top bits, so "ab" and "\0ab" don't share postings
+    private static long gram(String s, int i, int length) {
+        long gram = length;
+        for (int j = i; j < i + length; j++) {
+            gram = (gram << 16) | s.charAt(j);
+        }
+        return gram;
+    }
+
+    private static final class Entry {
+        private final Item item;
+        private final int id;
+        private final String key;
+        private boolean removed;
+
+        private Entry(Item item, String key) {
+            this.item = item;
+            this.id = item.getId();
+            this.key = key;
+        }
+
+        private boolean isInfixMatch(String q) {
+            return !key.startsWith(q) && key.contains(q);
+        }
+    }
+
+    // Entries kept sorted by item id; each id appears at most once. The one- and two-letter postings hold a good
+    // part of all items, so a removed entry is only marked (unindex) and counted, and dropped once half of
+    // them are dead, instead of shifting the whole array on every delete or rename.
+    private static final class Postings {
+        private Entry[] entries = new Entry[2];
+        private int size;
+        private int removed;
+
+        private int live() {
+            return size - removed;
+        }
+
+        private void add(Entry entry) {
+            if (size == 0 || entries[size - 1].id < entry.id) {
+                insertAt(size, entry);
+                return;
+            }
+            int i = indexOf(entry.id);
+            if (i < 0) {
+                insertAt(-i - 1, entry);
+            } else if (entries[i].removed) { // renamed back into this postings
+                entries[i] = entry;
+                removed--;
+            }
+        }
+
+        private boolean remove(Entry entry) {
+            int i = indexOf(entry.id);
+            if (i < 0 || entries[i] != entry) return false;
+            if (++removed * 2 > size) {
+                compact();
+            }
+            return true;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!entries[i].removed) entries[kept++] = entries[i];
+            }
+            Arrays.fill(entries, kept, size, null);
+            size = kept;
+            removed = 0;
+        }
+
+        private void insertAt(int i, Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            System.arraycopy(entries, i, entries, i + 1, size - i);
+            entries[i] = entry;
+            size++;
+        }
+
+        private int indexOf(int id) {
+            int lo = 0;
+            int hi = size - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int midId = entries[mid].id;
+                if (midId < id) lo = mid + 1;
+                else if (midId > id) hi = mid - 1;
+                else return mid;
+            }
+            return -(lo + 1);
+        }
+    }
+}
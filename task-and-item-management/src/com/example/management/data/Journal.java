@@ -0,0 +1,442 @@
+package com.example.management.data;
+
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+import com.example.management.model.TransactionKind;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Write-ahead journal of every change since the last autosave, so a crash loses at most the last fsync instead
+// of everything since the last save. Owners and items are journaled from the change events (the whole entity
+// on ADDED and UPDATED, the id on REMOVED) and transactions from HistoryArchive.record, with the history and
+// ledger positions they got, so replaying one twice is harmless.
+//
+// Records are [length][crc32][payload] in numbered segments, <dir>/<n>.journal. Writers only encode and queue
+// theirs; the journal's thread writes whatever is queued and fsyncs it once, so everything that came in during
+// one fsync shares the next (group commit) and nobody waits on the disk. Each autosave starts a new segment
+// before it drains its dirty marks and deletes the older ones once its manifest is written: by then the
+// snapshot holds everything they do, so the journal only ever holds the changes since the last save.
+//
+// Storage replays the segments on top of the loaded snapshot at startup; a damaged or half-written record ends
+// the replay, since what follows it could depend on it.
+public class Journal {
+    private static final Timer SYNC_TIMER = Metrics.timer("Journal.sync");
+    private static final TransactionKind[] KINDS = TransactionKind.values();
+    private static final String SUFFIX = ".journal";
+    private static final int MAX_RECORD = 1 << 26;
+    private static final byte OWNER = 1;
+    private static final byte OWNER_REMOVED = 2;
+    private static final byte ITEM = 3;
+    private static final byte ITEM_REMOVED = 4;
+    private static final byte TRANSACTION = 5;
+
+    private static volatile Journal instance;
+
+    // what a replay hands back, oldest first
+    public interface Replay {
+        void owner(int id, String name);
+        void ownerRemoved(int id);
+        void item(int id, String name, String description, int ownerId, int condition);
+        void itemRemoved(int id);
+        // historyPosition: the item's history size (archived included) before it; ledgerPosition -1 if the
+        // ledger didn't take it
+        void transaction(int historyPosition, int ledgerPosition, Transaction transaction);
+    }
+
+    private final Path dir;
+    private final Consumer<List<ChangeEvent<Item>>> itemListener = this::itemChanges;
+    private final Consumer<List<ChangeEvent<Owner>>> ownerListener = this::ownerChanges;
+    private final Object lock = new Object();
+    private final ArrayDeque<Batch> queued = new ArrayDeque<>(); // guarded by lock, oldest segment first
+    private long segment; // the one appends go to; guarded by lock
+    private long writingFrom = Long.MAX_VALUE; // oldest segment the writer has in hand; guarded by lock
+    private boolean closed;
+    private final Thread writer;
+    // the writer thread's own
+    private FileChannel channel;
+    private long channelSegment = -1;
+
+    private static final class Batch {
+        private final long segment;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+
+        private Batch(long segment) {
+            this.segment = segment;
+        }
+    }
+
+    private Journal(Path dir, long segment) {
+        this.dir = dir;
+        this.segment = segment;
+        this.writer = new Thread(this::writeLoop, "journal");
+        this.writer.setDaemon(true);
+    }
+
+    // null unless Storage opened it, so tools and benchmarks that run without Storage journal nothing
+    public static Journal getInstance() {
+        return instance;
+    }
+
+    public static Path directory() {
+        return Storage.dataPath("management.journal.dir", "journal");
+    }
+
+    // Starts journaling into segment and later ones. Storage calls it after the autosave has subscribed, so
+    // an event marks its shard dirty before it is journaled: a segment the autosave deletes never holds a
+    // change whose mark that save didn't drain.
+    public static synchronized Journal open(long segment) {
+        if (instance != null) return instance;
+        Path dir = directory();
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            System.err.println("Could not open the journal, changes are only saved by the autosave: " + e.getMessage());
+            return null;
+        }
+        Journal journal = new Journal(dir, segment);
+        journal.writer.start();
+        ChangeEvents events = ChangeEvents.getInstance();
+        events.addItemListener(journal.itemListener);
+        events.addOwnerListener(journal.ownerListener);
+        instance = journal;
+        return journal;
+    }
+
+    // Writes out what is queued and stops; later changes aren't journaled.
+    public void close() {
+        synchronized (Journal.class) {
+            if (instance == this) instance = null;
+        }
+        ChangeEvents events = ChangeEvents.getInstance();
+        events.removeItemListener(itemListener);
+        events.removeOwnerListener(ownerListener);
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Later appends go to a new segment, whose number is returned; the older segments hold only what came before.
+    public long roll() {
+        synchronized (lock) {
+            return ++segment;
+        }
+    }
+
+    // once the older segments are written out, so none is recreated after it is deleted
+    public void deleteBefore(long segment) {
+        synchronized (lock) {
+            try {
+                while (writingFrom < segment || (!queued.isEmpty() && queued.peekFirst().segment < segment)) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                long number = segmentOf(file);
+                if (number >= 0 && number < segment) Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not delete old journal segments: " + e.getMessage());
+        }
+    }
+
+    // the caller holds the item's lock, so its records go in the order its changes were made
+    public void transaction(int historyPosition, int ledgerPosition, Transaction transaction) {
+        append(encode(out -> {
+            out.writeByte(TRANSACTION);
+            out.writeInt(historyPosition);
+            out.writeInt(ledgerPosition);
+            out.writeInt(transaction.getItemId());
+            out.writeByte(transaction.getKind().ordinal());
+            out.writeInt(transaction.getAmount());
+            out.writeBoolean(transaction.isHitMax());
+            out.writeLong(transaction.getEpochSecond());
+            out.writeInt(transaction.getToOwnerId());
+            out.writeInt(transaction.getFromOwnerId());
+            if (transaction.getKind() == TransactionKind.OTHER) {
+                writeString(out, transaction.getType());
+            }
+        }));
+    }
+
+    // Reads every segment in the directory, oldest first; returns the highest segment number found, 0 if none.
+    public static long replay(Replay replay) throws IOException {
+        Path dir = directory();
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    long number = segmentOf(file);
+                    if (number >= 0) segments.put(number, file);
+                }
+            }
+        }
+        for (Path file : segments.values()) {
+            if (!replay(file, replay)) {
+                System.err.println("Journal " + file + " ends in a damaged record; replayed up to it");
+                break;
+            }
+        }
+        return segments.isEmpty() ? 0 : segments.lastKey();
+    }
+
+    // false at a damaged or half-written record
+    private static boolean replay(Path file, Replay replay) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return true;
+                }
+                if (length <= 0 || length > MAX_RECORD) return false;
+                int checksum;
+                byte[] payload = new byte[length];
+                try {
+                    checksum = in.readInt();
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return false;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) return false;
+                try {
+                    apply(new DataInputStream(new ByteArrayInputStream(payload)), replay);
+                } catch (IOException | RuntimeException e) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static void apply(DataInputStream in, Replay replay) throws IOException {
+        switch (in.readByte()) {
+            case OWNER -> replay.owner(in.readInt(), readString(in));
+            case OWNER_REMOVED -> replay.ownerRemoved(in.readInt());
+            case ITEM -> replay.item(in.readInt(), readString(in), readString(in), in.readInt(), in.readInt());
+            case ITEM_REMOVED -> replay.itemRemoved(in.readInt());
+            case TRANSACTION -> {
+                int historyPosition = in.readInt();
+                int ledgerPosition = in.readInt();
+                int itemId = in.readInt();
+                TransactionKind kind = KINDS[in.readByte()];
+                Transaction transaction = new Transaction(kind, in.readInt(), in.readBoolean(), in.readLong(), itemId,
+                        in.readInt(), in.readInt());
+                if (kind == TransactionKind.OTHER) {
+                    transaction.setType(readString(in));
+                }
+                replay.transaction(historyPosition, ledgerPosition, transaction);
+            }
+            default -> throw new IOException("Unknown journal record");
+        }
+    }
+
+    // Listeners run under the writers' entity locks: encode and queue, nothing else. An update that raced a
+    // delete and lost (the entity is gone from the store) isn't journaled: if the autosave dropped the segment
+    // with the REMOVED meanwhile, replaying the update would bring the entity back.
+    private void itemChanges(List<ChangeEvent<Item>> changes) {
+        DataStore store = DataStore.getInstance();
+        for (ChangeEvent<Item> change : changes) {
+            Item item = change.getEntity();
+            if (change.getType() == ChangeEvent.Type.REMOVED) {
+                append(encode(out -> {
+                    out.writeByte(ITEM_REMOVED);
+                    out.writeInt(item.getId());
+                }));
+            } else if (store.findItemById(item.getId()) == item) {
+                append(encode(out -> {
+                    out.writeByte(ITEM);
+                    out.writeInt(item.getId());
+                    writeString(out, item.getName());
+                    writeString(out, item.getDescriptionUncached());
+                    out.writeInt(item.getOwner() != null ? item.getOwner().getId() : Transaction.NONE);
+                    out.writeInt(item.getCondition());
+                }));
+            }
+        }
+    }
+
+    private void ownerChanges(List<ChangeEvent<Owner>> changes) {
+        DataStore store = DataStore.getInstance();
+        for (ChangeEvent<Owner> change : changes) {
+            Owner owner = change.getEntity();
+            if (change.getType() == ChangeEvent.Type.REMOVED) {
+                append(encode(out -> {
+                    out.writeByte(OWNER_REMOVED);
+                    out.writeInt(owner.getId());
+                }));
+            } else if (store.findOwnersById(owner.getId()) == owner) {
+                append(encode(out -> {
+                    out.writeByte(OWNER);
+                    out.writeInt(owner.getId());
+                    writeString(out, owner.getName());
+                }));
+            }
+        }
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            encoder.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream, doesn't happen
+        }
+        return bytes.toByteArray();
+    }
+
+    private void append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        synchronized (lock) {
+            if (closed) return;
+            Batch batch = queued.peekLast();
+            if (batch == null || batch.segment != segment) {
+                batch = new Batch(segment);
+                queued.addLast(batch);
+            }
+            writeInt(batch.bytes, payload.length);
+            writeInt(batch.bytes, (int) crc.getValue());
+            batch.bytes.write(payload, 0, payload.length);
+            lock.notifyAll();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Batch> batches;
+            synchronized (lock) {
+                while (queued.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // only close() stops the writer
+                    }
+                }
+                if (queued.isEmpty()) break;
+                batches = new ArrayList<>(queued);
+                queued.clear();
+                writingFrom = batches.get(0).segment;
+            }
+            write(batches);
+            synchronized (lock) {
+                writingFrom = Long.MAX_VALUE;
+                lock.notifyAll();
+            }
+        }
+        closeChannel();
+    }
+
+    // A batch that can't be written is lost to the journal only; the autosave still saves its changes.
+    private void write(List<Batch> batches) {
+        long start = SYNC_TIMER.start();
+        try {
+            for (Batch batch : batches) {
+                if (channelSegment != batch.segment) {
+                    closeChannel();
+                    channel = FileChannel.open(dir.resolve(batch.segment + SUFFIX), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    channelSegment = batch.segment;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(batch.bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Could not write the journal: " + e.getMessage());
+            closeChannel();
+        } finally {
+            SYNC_TIMER.stop(start);
+        }
+    }
+
+    // forces the segment before leaving it, so an older segment is never less durable than a newer one
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the journal: " + e.getMessage());
+        }
+        channel = null;
+        channelSegment = -1;
+    }
+
+    private static long segmentOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1; // not one of ours
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    // length-prefixed UTF-8, -1 for null; writeUTF would cap descriptions at 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
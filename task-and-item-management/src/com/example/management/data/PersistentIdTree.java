@@ -0,0 +1,254 @@
+package com.example.management.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Immutable B-tree of entities keyed by id. with()/without() copy only the path from the root to the
+// changed leaf and share every other node, so a new version costs O(log n) and holding on to an old one
+// costs nothing until it is dropped. Nodes also know their size, which gives rank and index lookups.
+public final class PersistentIdTree<T> {
+    private static final int MAX_CHILDREN = 32;
+    private static final int MAX_LEAF = 64;
+
+    private static final PersistentIdTree<?> EMPTY = new PersistentIdTree<>(new Leaf(new int[0], new Object[0]));
+
+    private final Node root;
+
+    private PersistentIdTree(Node root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentIdTree<T> empty() {
+        return (PersistentIdTree<T>) EMPTY;
+    }
+
+    public int size() {
+        return root.size();
+    }
+
+    // entity with the given rank, 0 being the smallest id
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Node node = root;
+        while (node instanceof Inner inner) {
+            int i = 0;
+            while (index >= inner.children[i].size()) {
+                index -= inner.children[i].size();
+                i++;
+            }
+            node = inner.children[i];
+        }
+        return (T) ((Leaf) node).values[index];
+    }
+
+    // number of entities with a smaller id
+    public int positionOf(int id) {
+        int position = 0;
+        Node node = root;
+        while (node instanceof Inner inner) {
+            int i = inner.childFor(id);
+            for (int j = 0; j < i; j++) {
+                position += inner.children[j].size();
+            }
+            node = inner.children[i];
+        }
+        int i = Arrays.binarySearch(((Leaf) node).ids, id);
+        return position + (i >= 0 ? i : -i - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> page(int offset, int limit, boolean descending) {
+        int from = Math.max(0, offset);
+        int to = (int) Math.min(size(), (long) from + Math.max(0, limit));
+        List<T> page = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) return page;
+        // collect the ascending range, then flip it for descending pages
+        int first = descending ? size() - to : from;
+        collect(root, first, first + (to - from), page);
+        return descending ? page.reversed() : page;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        forEach(root, (Consumer<Object>) action);
+    }
+
+    public PersistentIdTree<T> with(int id, T entity) {
+        Node[] split = root.with(id, entity);
+        if (split.length == 1) return split[0] == root ? this : new PersistentIdTree<>(split[0]);
+        return new PersistentIdTree<>(Inner.of(split));
+    }
+
+    public PersistentIdTree<T> without(int id) {
+        Node node = root.without(id);
+        if (node == root) return this;
+        while (node instanceof Inner inner && inner.children.length == 1) {
+            node = inner.children[0]; // keep the tree from growing tall after deletes
+        }
+        return node == null ? empty() : new PersistentIdTree<>(node);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void collect(Node node, int from, int to, List<T> out) {
+        if (node instanceof Leaf leaf) {
+            for (int i = from; i < to; i++) {
+                out.add((T) leaf.values[i]);
+            }
+            return;
+        }
+        for (Node child : ((Inner) node).children) {
+            int size = child.size();
+            if (from < size && to > 0) {
+                collect(child, Math.max(0, from), Math.min(size, to), out);
+            }
+            from -= size;
+            to -= size;
+            if (to <= 0) break;
+        }
+    }
+
+    private static void forEach(Node node, Consumer<Object> action) {
+        if (node instanceof Leaf leaf) {
+            for (Object value : leaf.values) {
+                action.accept(value);
+            }
+            return;
+        }
+        for (Node child : ((Inner) node).children) {
+            forEach(child, action);
+        }
+    }
+
+    private sealed interface Node permits Leaf, Inner {
+        int size();
+        int firstId();
+        Node[] with(int id, Object value); // the new node, or two halves after a split
+        Node without(int id); // the same node if id is absent, null if it became empty
+    }
+
+    private record Leaf(int[] ids, Object[] values) implements Node {
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        @Override
+        public int firstId() {
+            return ids.length == 0 ? Integer.MIN_VALUE : ids[0];
+        }
+
+        @Override
+        public Node[] with(int id, Object value) {
+            int i = Arrays.binarySearch(ids, id);
+            if (i >= 0) {
+                if (values[i] == value) return new Node[] { this };
+                Object[] newValues = values.clone();
+                newValues[i] = value;
+                return new Node[] { new Leaf(ids, newValues) };
+            }
+            i = -i - 1;
+            int[] newIds = new int[ids.length + 1];
+            Object[] newValues = new Object[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, i);
+            System.arraycopy(values, 0, newValues, 0, i);
+            newIds[i] = id;
+            newValues[i] = value;
+            System.arraycopy(ids, i, newIds, i + 1, ids.length - i);
+            System.arraycopy(values, i, newValues, i + 1, ids.length - i);
+            if (newIds.length <= MAX_LEAF) return new Node[] { new Leaf(newIds, newValues) };
+            // ids mostly arrive in increasing order, so split appends unevenly to keep leaves full
+            int half = i == ids.length ? MAX_LEAF : newIds.length / 2;
+            return new Node[] {
+                    new Leaf(Arrays.copyOfRange(newIds, 0, half), Arrays.copyOfRange(newValues, 0, half)),
+                    new Leaf(Arrays.copyOfRange(newIds, half, newIds.length), Arrays.copyOfRange(newValues, half, newIds.length))
+            };
+        }
+
+        @Override
+        public Node without(int id) {
+            int i = Arrays.binarySearch(ids, id);
+            if (i < 0) return this;
+            if (ids.length == 1) return null;
+            int[] newIds = new int[ids.length - 1];
+            Object[] newValues = new Object[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, i);
+            System.arraycopy(values, 0, newValues, 0, i);
+            System.arraycopy(ids, i + 1, newIds, i, ids.length - i - 1);
+            System.arraycopy(values, i + 1, newValues, i, ids.length - i - 1);
+            return new Leaf(newIds, newValues);
+        }
+    }
+
+    private record Inner(Node[] children, int size) implements Node {
+        private static Inner of(Node[] children) {
+            int size = 0;
+            for (Node child : children) {
+                size += child.size();
+            }
+            return new Inner(children, size);
+        }
+
+        @Override
+        public int firstId() {
+            return children[0].firstId();
+        }
+
+        // last child whose first id is <= id (the first child takes anything smaller)
+        private int childFor(int id) {
+            int low = 1;
+            int high = children.length - 1;
+            int found = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (children[mid].firstId() <= id) {
+                    found = mid;
+                    low = mid + 1;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public Node[] with(int id, Object value) {
+            int i = childFor(id);
+            Node[] replaced = children[i].with(id, value);
+            if (replaced.length == 1 && replaced[0] == children[i]) return new Node[] { this };
+            Node[] newChildren = new Node[children.length + replaced.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(replaced, 0, newChildren, i, replaced.length);
+            System.arraycopy(children, i + 1, newChildren, i + replaced.length, children.length - i - 1);
+            if (newChildren.length <= MAX_CHILDREN) return new Node[] { of(newChildren) };
+            int half = i == children.length - 1 ? MAX_CHILDREN : newChildren.length / 2;
+            return new Node[] {
+                    of(Arrays.copyOfRange(newChildren, 0, half)),
+                    of(Arrays.copyOfRange(newChildren, half, newChildren.length))
+            };
+        }
+
+        @Override
+        public Node without(int id) {
+            int i = childFor(id);
+            Node child = children[i].without(id);
+            if (child == children[i]) return this;
+            if (child == null) {
+                if (children.length == 1) return null;
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(children, 0, newChildren, 0, i);
+                System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+                return of(newChildren);
+            }
+            Node[] newChildren = children.clone();
+            newChildren[i] = child;
+            return of(newChildren);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.management.data;
+
+import com.example.management.model.Transaction;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// The shard files through jackson-core's streaming parser and generator instead of databind: records are
+// written field by field as they are walked, and each one read goes straight into the caller's map, so a load
+// never holds a shard's worth of bound lists on top of the records, and transactions skip the bean and
+// java.time deserializers. The JSON is what databind writes for the records (timestamps as JavaTimeModule's
+// [year, month, day, hour, minute(, second)] arrays), so shards from before read the same; fields it doesn't
+// know are skipped.
+final class ShardJson {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private ShardJson() {
+
+    }
+
+    static void writeItems(Path file, List<SnapshotShards.ItemRecord> records) throws IOException {
+        try (JsonGenerator out = FACTORY.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (SnapshotShards.ItemRecord record : records) {
+                out.writeStartObject();
+                out.writeNumberField("id", record.id());
+                out.writeStringField("name", record.name());
+                out.writeStringField("description", record.description());
+                out.writeNumberField("ownerId", record.ownerId());
+                out.writeNumberField("condition", record.condition());
+                out.writeNumberField("archivedHistory", record.archivedHistory());
+                out.writeArrayFieldStart("history");
+                for (Transaction transaction : record.history()) {
+                    writeTransaction(out, transaction);
+                }
+                out.writeEndArray();
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+    }
+
+    static void writeOwners(Path file, List<SnapshotShards.OwnerRecord> records) throws IOException {
+        try (JsonGenerator out = FACTORY.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (SnapshotShards.OwnerRecord record : records) {
+                out.writeStartObject();
+                out.writeNumberField("id", record.id());
+                out.writeStringField("name", record.name());
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+    }
+
+    static void readItems(Path file, Map<Integer, SnapshotShards.ItemRecord> into) throws IOException {
+        try (JsonParser in = FACTORY.createParser(file.toFile())) {
+            expect(in.nextToken(), JsonToken.START_ARRAY, in);
+            while (in.nextToken() == JsonToken.START_OBJECT) {
+                int id = 0;
+                String name = null;
+                String description = null;
+                int ownerId = Transaction.NONE;
+                int condition = 0;
+                int archivedHistory = 0;
+                List<Transaction> history = new ArrayList<>();
+                while (in.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = in.currentName();
+                    JsonToken value = in.nextToken();
+                    switch (field) {
+                        case "id" -> id = in.getIntValue();
+                        case "name" -> name = text(in, value);
+                        case "description" -> description = text(in, value);
+                        case "ownerId" -> ownerId = in.getIntValue();
+                        case "condition" -> condition = in.getIntValue();
+                        case "archivedHistory" -> archivedHistory = in.getIntValue();
+                        case "history" -> {
+                            if (value == JsonToken.VALUE_NULL) break;
+                            expect(value, JsonToken.START_ARRAY, in);
+                            while (in.nextToken() == JsonToken.START_OBJECT) {
+                                history.add(readTransaction(in));
+                            }
+                        }
+                        default -> in.skipChildren();
+                    }
+                }
+                into.put(id, new SnapshotShards.ItemRecord(id, name, description, ownerId, condition, archivedHistory, history));
+            }
+            expect(in.currentToken(), JsonToken.END_ARRAY, in);
+        }
+    }
+
+    static void readOwners(Path file, Map<Integer, SnapshotShards.OwnerRecord> into) throws IOException {
+        try (JsonParser in = FACTORY.createParser(file.toFile())) {
+            expect(in.nextToken(), JsonToken.START_ARRAY, in);
+            while (in.nextToken() == JsonToken.START_OBJECT) {
+                int id = 0;
+                String name = null;
+                while (in.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = in.currentName();
+                    JsonToken value = in.nextToken();
+                    switch (field) {
+                        case "id" -> id = in.getIntValue();
+                        case "name" -> name = text(in, value);
+                        default -> in.skipChildren();
+                    }
+                }
+                into.put(id, new SnapshotShards.OwnerRecord(id, name));
+            }
+            expect(in.currentToken(), JsonToken.END_ARRAY, in);
+        }
+    }
+
+    private static void writeTransaction(JsonGenerator out, Transaction transaction) throws IOException {
+        out.writeStartObject();
+        out.writeNumberField("itemId", transaction.getItemId());
+        out.writeNumberField("fromOwnerId", transaction.getFromOwnerId());
+        out.writeNumberField("toOwnerId", transaction.getToOwnerId());
+        out.writeStringField("type", transaction.getType());
+        LocalDateTime time = transaction.getTimeStamp();
+        out.writeArrayFieldStart("timeStamp");
+        out.writeNumber(time.getYear());
+        out.writeNumber(time.getMonthValue());
+        out.writeNumber(time.getDayOfMonth());
+        out.writeNumber(time.getHour());
+        out.writeNumber(time.getMinute());
+        if (time.getSecond() > 0) {
+            out.writeNumber(time.getSecond());
+        }
+        out.writeEndArray();
+        out.writeEndObject();
+    }
+
+    // the parser is on the transaction's START_OBJECT
+    private static Transaction readTransaction(JsonParser in) throws IOException {
+        Transaction transaction = new Transaction();
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String field = in.currentName();
+            JsonToken value = in.nextToken();
+            switch (field) {
+                case "itemId" -> transaction.setItemId(in.getIntValue());
+                case "fromOwnerId" -> transaction.setFromOwnerId(in.getIntValue());
+                case "toOwnerId" -> transaction.setToOwnerId(in.getIntValue());
+                case "type" -> transaction.setType(text(in, value));
+                case "timeStamp" -> transaction.setTimeStamp(timeStamp(in, value));
+                default -> in.skipChildren();
+            }
+        }
+        return transaction;
+    }
+
+    // the array form JavaTimeModule writes by default, or an ISO string
+    private static LocalDateTime timeStamp(JsonParser in, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value == JsonToken.VALUE_STRING) return LocalDateTime.parse(in.getText());
+        expect(value, JsonToken.START_ARRAY, in);
+        int[] parts = new int[7]; // year, month, day, hour, minute, second, nano
+        int count = 0;
+        while (in.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+            if (count < parts.length) parts[count++] = in.getIntValue();
+        }
+        expect(in.currentToken(), JsonToken.END_ARRAY, in);
+        if (count < 5) throw new IOException("Bad timestamp at " + in.currentLocation());
+        return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+    }
+
+    private static String text(JsonParser in, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : in.getText();
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected, JsonParser in) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual + " at " + in.currentLocation());
+        }
+    }
+}
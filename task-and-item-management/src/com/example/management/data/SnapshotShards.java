@@ -0,0 +1,202 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+
+// The store split into files of SHARD_SIZE consecutive ids: <dir>/items/<n>.json and <dir>/owners/<n>.json.
+// Items point at their owner by id, so moving an item only rewrites the item's own shard. Shards are read and
+// written with the streaming parser and generator (ShardJson); only the small manifest goes through databind.
+// <dir>/manifest.json lists the shards and is only written once a save has written everything it set out
+// to, so a directory without one (the first full save was cut short) is never loaded.
+//
+// Every so often the whole store is compacted into <dir>/base-<generation>.bin (a BinarySnapshot). Loading
+// then starts from that file and only reads the shards saved after it, each of which replaces its id range.
+public class SnapshotShards {
+    public static final int SHARD_SIZE = 1024;
+
+    private static SnapshotShards instance;
+
+    private final Path dir;
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    public record ItemRecord(int id, String name, String description, int ownerId, int condition,
+                             int archivedHistory, List<Transaction> history) { }
+
+    public record OwnerRecord(int id, String name) { }
+
+    // shard number -> generation of the save that last wrote it; a listed shard without a file is empty.
+    // ledgerCount is how many ledger records the saved histories account for; baseGeneration is the
+    // generation compacted into the base file, 0 for none. nextOwnerId/nextItemId are the store's id counters, so
+    // ids of deleted entities aren't handed out again after a restart (0: go by the highest saved id).
+    public record Manifest(long generation, long ledgerCount, long baseGeneration,
+                           Map<Integer, Long> itemShards, Map<Integer, Long> ownerShards,
+                           int nextOwnerId, int nextItemId) { }
+
+    public SnapshotShards(Path dir) {
+        this.dir = dir;
+    }
+
+    public static synchronized SnapshotShards getInstance() {
+        if (instance == null) {
+            instance = new SnapshotShards(Storage.dataPath("management.snapshot.dir", "snapshot"));
+        }
+        return instance;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public static int shardOf(int id) {
+        return Math.floorDiv(id, SHARD_SIZE);
+    }
+
+    public boolean exists() {
+        return Files.exists(dir.resolve("manifest.json"));
+    }
+
+    // null if no save has completed yet
+    public Manifest readManifest() throws IOException {
+        Path file = dir.resolve("manifest.json");
+        if (!Files.exists(file)) return null;
+        return mapper.readValue(file.toFile(), Manifest.class);
+    }
+
+    public void writeManifest(Manifest manifest) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve("manifest.json.tmp");
+        mapper.writeValue(tmp.toFile(), manifest);
+        Files.move(tmp, dir.resolve("manifest.json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void writeItems(int shard, List<ItemRecord> records) throws IOException {
+        write(dir.resolve("items"), shard, records, ShardJson::writeItems);
+    }
+
+    public void writeOwners(int shard, List<OwnerRecord> records) throws IOException {
+        write(dir.resolve("owners"), shard, records, ShardJson::writeOwners);
+    }
+
+    // Each generation gets its own file, so a manifest always names a base that is complete; the one it
+    // replaces is only deleted (deleteBasesBefore) once a manifest pointing at the new one is written.
+    public void writeBase(long generation, List<OwnerRecord> owners, List<ItemRecord> items) throws IOException {
+        Files.createDirectories(dir);
+        BinarySnapshot.write(baseFile(generation), owners, items);
+    }
+
+    public void deleteBasesBefore(long generation) throws IOException {
+        try (DirectoryStream<Path> bases = Files.newDirectoryStream(dir, "base-*.bin")) {
+            for (Path base : bases) {
+                String name = base.getFileName().toString();
+                try {
+                    if (Long.parseLong(name.substring("base-".length(), name.length() - ".bin".length())) < generation) {
+                        Files.delete(base);
+                    }
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+    }
+
+    // The saved store as records by id: the base file first, then every shard saved after it on top.
+    public void readRecords(Manifest manifest, NavigableMap<Integer, ItemRecord> items,
+                            NavigableMap<Integer, OwnerRecord> owners) throws IOException {
+        long base = manifest.baseGeneration();
+        if (base > 0) {
+            try (BinarySnapshot snapshot = BinarySnapshot.open(baseFile(base))) {
+                for (int i = 0; i < snapshot.getOwnerCount(); i++) {
+                    OwnerRecord record = snapshot.ownerRecord(i);
+                    owners.put(record.id(), record);
+                }
+                for (int i = 0; i < snapshot.getItemCount(); i++) {
+                    ItemRecord record = snapshot.itemRecord(i);
+                    items.put(record.id(), record);
+                }
+            }
+        }
+        for (int shard : new TreeSet<>(manifest.itemShards().keySet())) {
+            if (manifest.itemShards().get(shard) <= base) continue;
+            range(items, shard).clear();
+            Path file = dir.resolve("items").resolve(shard + ".json");
+            if (Files.exists(file)) ShardJson.readItems(file, items);
+        }
+        for (int shard : new TreeSet<>(manifest.ownerShards().keySet())) {
+            if (manifest.ownerShards().get(shard) <= base) continue;
+            range(owners, shard).clear();
+            Path file = dir.resolve("owners").resolve(shard + ".json");
+            if (Files.exists(file)) ShardJson.readOwners(file, owners);
+        }
+    }
+
+    // rebuilds the object graph, owner links included; the items go to itemsOut
+    public static List<Owner> toEntities(Collection<OwnerRecord> ownerRecords, Collection<ItemRecord> itemRecords,
+                                         List<Item> itemsOut) {
+        Map<Integer, Owner> owners = new HashMap<>();
+        List<Owner> ownerList = new ArrayList<>(ownerRecords.size());
+        for (OwnerRecord record : ownerRecords) {
+            Owner owner = new Owner(record.name());
+            owner.setId(record.id());
+            owners.put(record.id(), owner);
+            ownerList.add(owner);
+        }
+        for (ItemRecord record : itemRecords) {
+            Item item = new Item(record.name(), record.description());
+            item.setId(record.id());
+            item.setCondition(record.condition());
+            item.setArchivedHistory(record.archivedHistory());
+            item.setHistory(new ArrayList<>(record.history()));
+            Owner owner = owners.get(record.ownerId());
+            if (owner != null) {
+                owner.addItem(item);
+            }
+            itemsOut.add(item);
+        }
+        return ownerList;
+    }
+
+    private Path baseFile(long generation) {
+        return dir.resolve("base-" + generation + ".bin");
+    }
+
+    // the entries of one shard's id range
+    private static <V> Map<Integer, V> range(NavigableMap<Integer, V> map, int shard) {
+        long from = (long) shard * SHARD_SIZE;
+        long to = from + SHARD_SIZE;
+        NavigableMap<Integer, V> tail = map.tailMap((int) Math.max(from, Integer.MIN_VALUE), true);
+        return to > Integer.MAX_VALUE ? tail : tail.headMap((int) to, false);
+    }
+
+    // write-then-rename, so a crash leaves either the old shard or the new one, never half of one
+    private <R> void write(Path kindDir, int shard, List<R> records, Writer<R> writer) throws IOException {
+        Path file = kindDir.resolve(shard + ".json");
+        if (records.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.createDirectories(kindDir);
+        Path tmp = kindDir.resolve(shard + ".json.tmp");
+        writer.write(tmp, records);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private interface Writer<R> {
+        void write(Path file, List<R> records) throws IOException;
+    }
+}
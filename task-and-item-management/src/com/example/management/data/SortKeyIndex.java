@@ -0,0 +1,197 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Entities in the order of one sortable table column (name, condition), ties broken by id. Kept as a list of
+// sorted blocks: a change touches one block, and a page or a row position is a walk over the block sizes
+// plus a binary search. Built on first use, since most sessions never sort by these columns.
+// synchronized because the views read it on the FX thread while writers apply changes on theirs.
+public class SortKeyIndex<T, K> {
+    private static final int BLOCK_SIZE = 512; // a block is split in two once it doubles
+
+    // case-insensitive first so "apple" and "Apple" sit together; compares the shared name strings, no copies
+    public static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()));
+
+    private static SortKeyIndex<Item, String> itemsByName;
+    private static SortKeyIndex<Item, Integer> itemsByCondition;
+    private static SortKeyIndex<Owner, String> ownersByName;
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, K> keyOf;
+    private final Comparator<Entry<T, K>> order;
+    private final List<List<Entry<T, K>>> blocks = new ArrayList<>(); // none of them empty
+    private final Map<T, Entry<T, K>> entries = new IdentityHashMap<>(); // the key each entity is filed under
+    private int size;
+
+    private record Entry<T, K>(K key, int id, T entity) { }
+
+    private SortKeyIndex(Collection<T> initial, ToIntFunction<T> idOf, Function<T, K> keyOf, Comparator<? super K> keyOrder) {
+        this.idOf = idOf;
+        this.keyOf = keyOf;
+        this.order = Comparator.<Entry<T, K>, K>comparing(Entry::key, keyOrder).thenComparingInt(Entry::id);
+        List<Entry<T, K>> all = new ArrayList<>(initial.size());
+        for (T entity : initial) {
+            Entry<T, K> entry = entryFor(entity);
+            all.add(entry);
+            entries.put(entity, entry);
+        }
+        all.sort(order);
+        for (int i = 0; i < all.size(); i += BLOCK_SIZE) {
+            blocks.add(new ArrayList<>(all.subList(i, Math.min(all.size(), i + BLOCK_SIZE))));
+        }
+        size = all.size();
+    }
+
+    public static synchronized SortKeyIndex<Item, String> itemsByName() {
+        if (itemsByName == null) {
+            itemsByName = new SortKeyIndex<>(DataStore.getInstance().findAllItems(), Item::getId, Item::getName, NAME_ORDER);
+            ChangeEvents.getInstance().addItemIndex(itemsByName::applyChanges);
+        }
+        return itemsByName;
+    }
+
+    public static synchronized SortKeyIndex<Item, Integer> itemsByCondition() {
+        if (itemsByCondition == null) {
+            itemsByCondition = new SortKeyIndex<>(DataStore.getInstance().findAllItems(), Item::getId, Item::getCondition,
+                    Comparator.naturalOrder());
+            ChangeEvents.getInstance().addItemIndex(itemsByCondition::applyChanges);
+        }
+        return itemsByCondition;
+    }
+
+    public static synchronized SortKeyIndex<Owner, String> ownersByName() {
+        if (ownersByName == null) {
+            ownersByName = new SortKeyIndex<>(DataStore.getInstance().findAllOwners(), Owner::getId, Owner::getName, NAME_ORDER);
+            ChangeEvents.getInstance().addOwnerIndex(ownersByName::applyChanges);
+        }
+        return ownersByName;
+    }
+
+    private synchronized void applyChanges(List<ChangeEvent<T>> changes) {
+        for (ChangeEvent<T> change : changes) {
+            T entity = change.getEntity();
+            Entry<T, K> filed = entries.get(entity);
+            switch (change.getType()) {
+                case ADDED -> {
+                    if (filed == null) insert(entity);
+                }
+                case UPDATED -> { // only entities already indexed; a late update must not bring back a removed one
+                    if (filed != null && !Objects.equals(filed.key(), keyOf.apply(entity))) {
+                        remove(filed);
+                        insert(entity);
+                    }
+                }
+                case REMOVED -> {
+                    if (filed != null) remove(filed);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Row of the entity, or for one that isn't indexed (just removed, say) the row it would have: the number
+    // of entries ordered before it, by its current key.
+    public synchronized int positionOf(T entity, boolean descending) {
+        Entry<T, K> entry = entries.get(entity);
+        boolean indexed = entry != null;
+        if (!indexed) entry = entryFor(entity);
+        if (blocks.isEmpty()) return 0;
+        int block = blockFor(entry);
+        int position = Collections.binarySearch(blocks.get(block), entry, order);
+        if (position < 0) position = -position - 1;
+        for (int i = 0; i < block; i++) {
+            position += blocks.get(i).size();
+        }
+        return descending ? size - position - (indexed ? 1 : 0) : position;
+    }
+
+    public synchronized List<T> page(int offset, int limit, boolean descending) {
+        int from = Math.max(0, offset);
+        int to = (int) Math.min(size, (long) from + Math.max(0, limit));
+        if (from >= to) return new ArrayList<>();
+        if (descending) {
+            int ascendingFrom = size - to;
+            to = size - from;
+            from = ascendingFrom;
+        }
+        List<T> page = new ArrayList<>(to - from);
+        int blockStart = 0;
+        for (List<Entry<T, K>> block : blocks) {
+            int blockEnd = blockStart + block.size();
+            if (blockEnd > from) {
+                for (int i = Math.max(from, blockStart); i < Math.min(to, blockEnd); i++) {
+                    page.add(block.get(i - blockStart).entity());
+                }
+                if (blockEnd >= to) break;
+            }
+            blockStart = blockEnd;
+        }
+        if (descending) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    private Entry<T, K> entryFor(T entity) {
+        return new Entry<>(keyOf.apply(entity), idOf.applyAsInt(entity), entity);
+    }
+
+    private void insert(T entity) {
+        Entry<T, K> entry = entryFor(entity);
+        entries.put(entity, entry);
+        size++;
+        if (blocks.isEmpty()) {
+            blocks.add(new ArrayList<>(List.of(entry)));
+            return;
+        }
+        int index = blockFor(entry);
+        List<Entry<T, K>> block = blocks.get(index);
+        int position = Collections.binarySearch(block, entry, order);
+        block.add(-position - 1, entry);
+        if (block.size() >= 2 * BLOCK_SIZE) {
+            List<Entry<T, K>> upper = block.subList(BLOCK_SIZE, block.size());
+            blocks.add(index + 1, new ArrayList<>(upper));
+            upper.clear();
+        }
+    }
+
+    private void remove(Entry<T, K> entry) {
+        entries.remove(entry.entity());
+        size--;
+        int index = blockFor(entry);
+        List<Entry<T, K>> block = blocks.get(index);
+        block.remove(Collections.binarySearch(block, entry, order));
+        if (block.isEmpty()) {
+            blocks.remove(index);
+        }
+    }
+
+    // first block whose last entry is not before the entry; the last block if every block is
+    private int blockFor(Entry<T, K> entry) {
+        int lo = 0;
+        int hi = blocks.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            List<Entry<T, K>> block = blocks.get(mid);
+            if (order.compare(block.get(block.size() - 1), entry) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
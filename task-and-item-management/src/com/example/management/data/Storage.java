@@ -0,0 +1,239 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// What the app and the API server run at startup and shutdown. Start loads the store from the snapshot shards
+// when a complete save exists, replays the journal of what changed after it (Journal), opens the transaction
+// ledger and starts the autosave and the journal; stop flushes what changed since the last autosave, which is
+// all the saving shutdown does.
+// Only one process may run on a data directory: the app and the API server both autosave and append to the
+// ledger, so start takes an exclusive lock on <data dir>/.lock and refuses to go on if someone else has it.
+public class Storage {
+    private static Storage instance;
+
+    private final SnapshotShards shards;
+    private boolean started;
+    private FileLock lock;
+
+    private Storage(SnapshotShards shards) {
+        this.shards = shards;
+    }
+
+    // Where a file or directory of the app's lives: the path in the given property if one is set, otherwise
+    // name under the data directory (management.data.dir, "data" in the working directory by default).
+    public static Path dataPath(String property, String name) {
+        String path = System.getProperty(property);
+        return path != null ? Path.of(path) : Path.of(System.getProperty("management.data.dir", "data")).resolve(name);
+    }
+
+    public static synchronized Storage getInstance() {
+        if (instance == null) {
+            instance = new Storage(SnapshotShards.getInstance());
+        }
+        return instance;
+    }
+
+    // before anything reads the store: the indexes are built from whatever it holds when they are first used.
+    // A snapshot that exists but can't be read stops startup: the first autosave would otherwise replace it
+    // with whatever the store holds without it.
+    public synchronized void start() {
+        if (started) return;
+        lock();
+        SnapshotShards.Manifest manifest;
+        Replayed replayed;
+        try {
+            manifest = shards.readManifest();
+            replayed = load(manifest);
+        } catch (IOException | RuntimeException e) {
+            unlock();
+            throw new IllegalStateException("Could not load the snapshot in " + shards.getDir()
+                    + "; not starting, so it isn't overwritten. Fix or move it aside and start again.", e);
+        }
+        started = true;
+        // opened here, before anyone records, so its first-run seeding never waits on a writer's locks;
+        // without a snapshot the ledger is rebuilt from the histories the store starts with
+        TransactionLedger ledger = TransactionLedger.open(manifest != null ? manifest.ledgerCount() : 0);
+        if (manifest != null) {
+            // journaled transactions the ledger lost with the crash, in their original order
+            replayed.ledger.tailMap(ledger.size()).values().forEach(ledger::append);
+        }
+        Autosave.getInstance().start(manifest, replayed.items, replayed.owners);
+        Journal.open(replayed.lastSegment + 1);
+    }
+
+    public synchronized void stop() {
+        if (!started) return;
+        started = false;
+        Autosave.getInstance().shutdown();
+        Journal journal = Journal.getInstance();
+        if (journal != null) {
+            journal.close();
+        }
+        unlock();
+    }
+
+    private void lock() {
+        Path file = dataPath("management.lock.file", ".lock").toAbsolutePath();
+        FileChannel channel;
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open " + file + " to lock the data directory", e);
+        }
+        try {
+            lock = channel.tryLock();
+        } catch (IOException | OverlappingFileLockException e) { // overlapping: held elsewhere in this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing was locked through it
+            }
+            throw new IllegalStateException("The data in " + file.getParent() + " is in use by another process ("
+                    + file + " is locked); not starting.");
+        }
+    }
+
+    // closing the channel releases the lock
+    private void unlock() {
+        if (lock == null) return;
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            System.err.println("Could not release the data directory lock: " + e.getMessage());
+        }
+        lock = null;
+    }
+
+    // The snapshot, then the journal on top of it. Everything is read before the store is touched, so a bad
+    // shard leaves it as it was. With neither, the store keeps what it starts with.
+    private Replayed load(SnapshotShards.Manifest manifest) throws IOException {
+        Replayed replayed = new Replayed();
+        if (manifest != null) {
+            shards.readRecords(manifest, replayed.itemRecords, replayed.ownerRecords);
+        }
+        replayed.lastSegment = Journal.replay(replayed);
+        if (manifest == null && replayed.lastSegment == 0) return replayed;
+        List<Item> items = new ArrayList<>(replayed.itemRecords.size());
+        List<Owner> owners = SnapshotShards.toEntities(replayed.ownerRecords.values(), replayed.itemRecords.values(), items);
+        // with their saved ids, which links and history refer to; ids the journal saw are never handed out again,
+        // even those of entities it also saw deleted
+        DataStore.getInstance().restore(owners, items,
+                Math.max(manifest != null ? manifest.nextOwnerId() : 0, replayed.nextOwnerId),
+                Math.max(manifest != null ? manifest.nextItemId() : 0, replayed.nextItemId));
+        HistoryArchive.getInstance().purgeOrphans(DataStore.getInstance().findAllItems());
+        return replayed;
+    }
+
+    // the journal applied to the snapshot's records
+    private static final class Replayed implements Journal.Replay {
+        private final TreeMap<Integer, SnapshotShards.ItemRecord> itemRecords = new TreeMap<>();
+        private final TreeMap<Integer, SnapshotShards.OwnerRecord> ownerRecords = new TreeMap<>();
+        private final Set<Integer> items = new HashSet<>(); // changed by the journal
+        private final Set<Integer> owners = new HashSet<>();
+        // ids are never reused, so a removed entity stays removed: an update racing its delete can be
+        // journaled after the REMOVED
+        private final Set<Integer> removedItems = new HashSet<>();
+        private final Set<Integer> removedOwners = new HashSet<>();
+        private final TreeMap<Integer, Transaction> ledger = new TreeMap<>(); // by ledger position
+        private final Set<Integer> ownHistory = new HashSet<>(); // records whose history list is ours to add to
+        // transactions journaled before their item: a repair can get in between addItem and its ADDED event
+        private final Map<Integer, List<Pending>> early = new HashMap<>();
+        private int nextOwnerId;
+        private int nextItemId;
+        private long lastSegment;
+
+        private record Pending(int historyPosition, Transaction transaction) { }
+
+        @Override
+        public void owner(int id, String name) {
+            if (removedOwners.contains(id)) return;
+            ownerRecords.put(id, new SnapshotShards.OwnerRecord(id, name));
+            owners.add(id);
+            nextOwnerId = Math.max(nextOwnerId, id + 1);
+        }
+
+        @Override
+        public void ownerRemoved(int id) {
+            ownerRecords.remove(id);
+            removedOwners.add(id);
+            owners.add(id);
+            nextOwnerId = Math.max(nextOwnerId, id + 1);
+        }
+
+        // the history isn't journaled with the item, so it carries over from the record it replaces
+        @Override
+        public void item(int id, String name, String description, int ownerId, int condition) {
+            if (removedItems.contains(id)) return;
+            SnapshotShards.ItemRecord previous = itemRecords.get(id);
+            itemRecords.put(id, new SnapshotShards.ItemRecord(id, name, description, ownerId, condition,
+                    previous != null ? previous.archivedHistory() : 0,
+                    previous != null ? previous.history() : new ArrayList<>()));
+            if (previous == null) ownHistory.add(id);
+            items.add(id);
+            nextItemId = Math.max(nextItemId, id + 1);
+            List<Pending> pending = early.remove(id);
+            if (pending != null) {
+                pending.forEach(p -> addToHistory(p.historyPosition(), p.transaction()));
+            }
+        }
+
+        @Override
+        public void itemRemoved(int id) {
+            itemRecords.remove(id);
+            removedItems.add(id);
+            ownHistory.remove(id);
+            early.remove(id);
+            items.add(id);
+            nextItemId = Math.max(nextItemId, id + 1);
+        }
+
+        @Override
+        public void transaction(int historyPosition, int ledgerPosition, Transaction transaction) {
+            if (ledgerPosition >= 0) {
+                ledger.put(ledgerPosition, transaction);
+            }
+            int id = transaction.getItemId();
+            nextItemId = Math.max(nextItemId, id + 1);
+            if (itemRecords.containsKey(id)) {
+                addToHistory(historyPosition, transaction);
+            } else if (!removedItems.contains(id)) {
+                early.computeIfAbsent(id, k -> new ArrayList<>()).add(new Pending(historyPosition, transaction));
+            }
+        }
+
+        // only the next entry is added: a lower position is already in the snapshot's history
+        private void addToHistory(int historyPosition, Transaction transaction) {
+            int id = transaction.getItemId();
+            SnapshotShards.ItemRecord record = itemRecords.get(id);
+            if (historyPosition != record.archivedHistory() + record.history().size()) return;
+            if (ownHistory.add(id)) {
+                record = new SnapshotShards.ItemRecord(id, record.name(), record.description(), record.ownerId(),
+                        record.condition(), record.archivedHistory(), new ArrayList<>(record.history()));
+                itemRecords.put(id, record);
+            }
+            record.history().add(transaction);
+            items.add(id);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+import com.example.management.model.Transaction;
+import com.example.management.model.TransactionKind;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Append-only record of every Transaction across all items, so per-owner, per-item and time-range
+// questions don't have to walk each Item's history. <dir>/ledger.dat holds fixed-size records in append
+// order behind a small header with the record count; it is memory-mapped in chunks, so an append is a
+// store into the page cache and reads go to the OS, not the heap. Only the indexes live on the heap: position
+// lists kept in timestamp order, so a range is a binary search plus a scan. Free-form (OTHER) types don't
+// fit a record and go to <dir>/ledger.types.
+//
+// sync() forces everything to disk and returns the count; the autosave puts that count in the snapshot
+// manifest, and open() cuts the ledger back to it, so the ledger never keeps transactions the saved
+// histories lost in a crash.
+//
+// Appends only share a short lock to take the next position and store the record; each index list has its
+// own lock, so writers to different items and owners meet only on the time index, and readers hold one
+// list at a time.
+public class TransactionLedger {
+    private static final TransactionKind[] KINDS = TransactionKind.values();
+    private static final int MAGIC = 0x544c4731; // "TLG1"
+    private static final int HEADER = 32; // magic, then the count at COUNT_OFFSET
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD = 32;
+    private static final int CHUNK_RECORDS = 1 << 18; // 8 MiB mapped at a time
+
+    private static volatile TransactionLedger instance;
+
+    private final Path file;
+    private final Path typesFile;
+    private FileChannel channel; // null if the file couldn't be opened, then nothing is recorded
+    private FileChannel typesChannel;
+    private MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new CopyOnWriteArrayList<>(); // grows every CHUNK_RECORDS appends
+    private final Map<Integer, String> otherTypes = new ConcurrentHashMap<>(); // rare, so kept aside on the heap
+    private final Object writeLock = new Object();
+    private volatile int size;
+
+    private final Positions byTime = new Positions();
+    private final Map<Integer, Positions> byOwner = new ConcurrentHashMap<>();
+    private final Map<Integer, Positions> byItem = new ConcurrentHashMap<>();
+
+    private TransactionLedger(Path dir) {
+        this.file = dir.resolve("ledger.dat");
+        this.typesFile = dir.resolve("ledger.types");
+    }
+
+    // Storage opens it at startup, with the count the loaded snapshot was saved with. Anything that runs
+    // without Storage (tools, benchmarks) gets the file as it is.
+    public static TransactionLedger getInstance() {
+        TransactionLedger ledger = instance;
+        if (ledger == null) {
+            ledger = open(Long.MAX_VALUE);
+        }
+        return ledger;
+    }
+
+    public static synchronized TransactionLedger open(long savedCount) {
+        if (instance == null) {
+            TransactionLedger ledger = new TransactionLedger(Storage.dataPath("management.history.dir", "history"));
+            ledger.load(savedCount);
+            instance = ledger;
+        }
+        return instance;
+    }
+
+    // returns the transaction's position, or -1 if it couldn't be recorded
+    public int append(Transaction transaction) {
+        if (channel == null) return -1;
+        int position;
+        synchronized (writeLock) {
+            position = size;
+            try {
+                if (transaction.getKind() == TransactionKind.OTHER) {
+                    writeType(position, transaction.getType());
+                }
+                writeRecord(position, transaction);
+                header.putLong(COUNT_OFFSET, position + 1L);
+            } catch (IOException e) {
+                // not indexed either, so the index never points past the file
+                System.err.println("Could not write transaction to the ledger: " + e.getMessage());
+                return -1;
+            }
+            size = position + 1;
+        }
+        index(position, transaction);
+        return position;
+    }
+
+    // forces the ledger to disk; every transaction appended before the call is in the returned count
+    public long sync() {
+        int count = size;
+        if (channel == null) return count;
+        try {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            typesChannel.force(false);
+            header.force();
+        } catch (IOException e) {
+            System.err.println("Could not sync the transaction ledger: " + e.getMessage());
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // everything in [fromEpochSecond, toEpochSecond], oldest first
+    public List<Transaction> findBetween(long fromEpochSecond, long toEpochSecond) {
+        return collect(byTime, fromEpochSecond, toEpochSecond);
+    }
+
+    // transactions moving an item to or from the owner
+    public List<Transaction> findByOwner(int ownerId, long fromEpochSecond, long toEpochSecond) {
+        return collect(byOwner.get(ownerId), fromEpochSecond, toEpochSecond);
+    }
+
+    public List<Transaction> findByItem(int itemId, long fromEpochSecond, long toEpochSecond) {
+        return collect(byItem.get(itemId), fromEpochSecond, toEpochSecond);
+    }
+
+    private List<Transaction> collect(Positions positions, long from, long to) {
+        List<Transaction> found = new ArrayList<>();
+        if (positions == null) return found;
+        synchronized (positions) {
+            for (int i = positions.firstAtOrAfter(from); i < positions.size && epochSecond(positions.values[i]) <= to; i++) {
+                found.add(get(positions.values[i]));
+            }
+        }
+        return found;
+    }
+
+    private Transaction get(int position) {
+        ByteBuffer chunk = chunks.get(position / CHUNK_RECORDS);
+        int at = (position % CHUNK_RECORDS) * RECORD;
+        TransactionKind kind = KINDS[chunk.get(at)];
+        Transaction transaction = new Transaction(kind, chunk.getInt(at + 4), chunk.get(at + 1) != 0, chunk.getLong(at + 8),
+                chunk.getInt(at + 16), chunk.getInt(at + 20), chunk.getInt(at + 24));
+        if (kind == TransactionKind.OTHER) {
+            transaction.setType(otherTypes.get(position));
+        }
+        return transaction;
+    }
+
+    private long epochSecond(int position) {
+        return chunks.get(position / CHUNK_RECORDS).getLong((position % CHUNK_RECORDS) * RECORD + 8);
+    }
+
+    private void writeRecord(int position, Transaction transaction) throws IOException {
+        while (position / CHUNK_RECORDS >= chunks.size()) {
+            long from = HEADER + (long) chunks.size() * CHUNK_RECORDS * RECORD;
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, from, (long) CHUNK_RECORDS * RECORD));
+        }
+        ByteBuffer chunk = chunks.get(position / CHUNK_RECORDS);
+        int at = (position % CHUNK_RECORDS) * RECORD;
+        chunk.put(at, (byte) transaction.getKind().ordinal());
+        chunk.put(at + 1, (byte) (transaction.isHitMax() ? 1 : 0));
+        chunk.putInt(at + 4, transaction.getAmount());
+        chunk.putLong(at + 8, transaction.getEpochSecond());
+        chunk.putInt(at + 16, transaction.getItemId());
+        chunk.putInt(at + 20, transaction.getToOwnerId());
+        chunk.putInt(at + 24, transaction.getFromOwnerId());
+    }
+
+    private void writeType(int position, String type) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(position);
+        out.writeUTF(type != null ? type : "");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            typesChannel.write(buffer);
+        }
+        otherTypes.put(position, type);
+    }
+
+    private void index(int position, Transaction transaction) {
+        byTime.add(position);
+        byItem.computeIfAbsent(transaction.getItemId(), id -> new Positions()).add(position);
+        if (transaction.getToOwnerId() != Transaction.NONE) {
+            byOwner.computeIfAbsent(transaction.getToOwnerId(), id -> new Positions()).add(position);
+        }
+        if (transaction.getFromOwnerId() != Transaction.NONE && transaction.getFromOwnerId() != transaction.getToOwnerId()) {
+            byOwner.computeIfAbsent(transaction.getFromOwnerId(), id -> new Positions()).add(position);
+        }
+    }
+
+    private void load(long savedCount) {
+        try {
+            Files.createDirectories(file.getParent());
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            long count = header.getInt(0) == MAGIC ? header.getLong(COUNT_OFFSET) : 0; // anything else starts over
+            count = Math.max(0, Math.min(count, Math.min(savedCount, (channel.size() - HEADER) / RECORD)));
+            header.putInt(0, MAGIC);
+            header.putLong(COUNT_OFFSET, count);
+            this.typesChannel = FileChannel.open(typesFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            typesChannel.truncate(loadTypes(count));
+            typesChannel.position(typesChannel.size());
+            for (long mapped = 0; mapped < count; mapped += CHUNK_RECORDS) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER + mapped * RECORD, (long) CHUNK_RECORDS * RECORD));
+            }
+            for (int position = 0; position < count; position++) {
+                int ordinal = chunks.get(position / CHUNK_RECORDS).get((position % CHUNK_RECORDS) * RECORD);
+                if (ordinal < 0 || ordinal >= KINDS.length) { // unreadable: keep what comes before it
+                    header.putLong(COUNT_OFFSET, position);
+                    break;
+                }
+                index(position, get(position));
+                size = position + 1;
+            }
+            if (size == 0) {
+                seed();
+            }
+            sync();
+        } catch (IOException e) {
+            System.err.println("Could not open the transaction ledger, it will not be saved: " + e.getMessage());
+            this.channel = null;
+            chunks.clear();
+            otherTypes.clear();
+            byTime.size = 0;
+            byOwner.clear();
+            byItem.clear();
+            size = 0;
+        }
+    }
+
+    // keeps the types of the first count records; returns the length of the file that holds them
+    private long loadTypes(long count) throws IOException {
+        long valid = 0;
+        try (CountingInput counter = new CountingInput(Files.newInputStream(typesFile));
+             DataInputStream in = new DataInputStream(counter)) {
+            while (true) {
+                int position;
+                String type;
+                try {
+                    position = in.readInt();
+                    type = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (position < 0 || position >= count) break; // written after the count we keep
+                otherTypes.put(position, type);
+                valid = counter.count;
+            }
+        }
+        return valid;
+    }
+
+    // First run, or a ledger that was cut back to nothing: build it from the histories in the store. Reads
+    // the segment files directly instead of through the archive, so it needs none of the archive's locks.
+    private void seed() {
+        HistoryArchive archive = HistoryArchive.getInstance();
+        List<Transaction> all = new ArrayList<>();
+        for (Item item : DataStore.getInstance().findAllItems()) {
+            for (Transaction transaction : archive.readAll(item)) {
+                transaction.setItemId(item.getId()); // entries saved before transactions carried their item have 0
+                all.add(transaction);
+            }
+        }
+        all.sort(Comparator.comparingLong(Transaction::getEpochSecond));
+        for (Transaction transaction : all) {
+            append(transaction);
+        }
+    }
+
+    // ledger positions ordered by timestamp, ties in append order
+    private final class Positions {
+        private int[] values = new int[4];
+        private int size;
+
+        private synchronized void add(int position) {
+            long epochSecond = epochSecond(position);
+            int i = size == 0 || epochSecond(values[size - 1]) <= epochSecond
+                    ? size : firstAtOrAfter(epochSecond + 1); // appends come in time order unless the clock moved back
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = position;
+            size++;
+        }
+
+        private int firstAtOrAfter(long epochSecond) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochSecond(values[mid]) < epochSecond) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    private static final class CountingInput extends BufferedInputStream {
+        private long count;
+
+        private CountingInput(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
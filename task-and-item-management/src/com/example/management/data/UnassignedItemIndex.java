@@ -0,0 +1,67 @@
+package com.example.management.data;
+
+import com.example.management.model.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+// Items without an owner, kept up to date from the item change events like the other indexes: every change of
+// owner (assign, unassign, deleting the owner) fires an UPDATED for the item, so nothing has to remember to
+// call in here.
+public class UnassignedItemIndex {
+    private static UnassignedItemIndex instance;
+
+    // keyed by id so a page can resume right after the last item it handed out
+    private final TreeMap<Integer, Item> items = new TreeMap<>();
+
+    private UnassignedItemIndex() {
+        for (Item item : DataStore.getInstance().findAllItems()) {
+            update(item);
+        }
+        ChangeEvents.getInstance().addItemIndex(this::applyChanges);
+    }
+
+    public static synchronized UnassignedItemIndex getInstance() {
+        if (instance == null) {
+            instance = new UnassignedItemIndex();
+        }
+        return instance;
+    }
+
+    private synchronized void applyChanges(List<ChangeEvent<Item>> changes) {
+        DataStore store = DataStore.getInstance();
+        for (ChangeEvent<Item> change : changes) {
+            Item item = change.getEntity();
+            switch (change.getType()) {
+                case ADDED, UPDATED -> {
+                    // events fire under the item's lock, so this is current; a late update must not bring back a deleted item
+                    if (store.findItemById(item.getId()) == item) update(item);
+                }
+                case REMOVED -> items.remove(item.getId(), item);
+            }
+        }
+    }
+
+    private void update(Item item) {
+        if (item.getOwner() == null) {
+            items.put(item.getId(), item);
+        }
+        else {
+            items.remove(item.getId());
+        }
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public synchronized List<Item> page(int afterId, int limit) {
+        List<Item> page = new ArrayList<>(Math.min(limit, items.size()));
+        for (Item item : items.tailMap(afterId, false).values()) {
+            if (page.size() == limit) break;
+            page.add(item);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.management.data;
+
+import com.example.management.model.Role;
+import com.example.management.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Accounts keyed by username, saved to their own file (management.users.file) with only password hashes in it.
+// Every login does exactly one hash, found or not, so the time it takes doesn't depend on the
+// number of accounts or reveal which usernames exist.
+public class UserDirectory {
+    private static UserDirectory instance;
+
+    private final Path file;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    // hashed against when the username is unknown; made once here, the directory is first used off the FX thread
+    private final User missing = User.hashed("", "", Role.USER, User.DEFAULT_ITERATIONS);
+
+    private UserDirectory(Path file) {
+        this.file = file;
+    }
+
+    public static synchronized UserDirectory getInstance() {
+        if (instance == null) {
+            UserDirectory directory = new UserDirectory(Storage.dataPath("management.users.file", "users.json"));
+            directory.load();
+            instance = directory;
+        }
+        return instance;
+    }
+
+    public User authenticate(String username, String password) {
+        User user = users.get(username);
+        if (user == null) {
+            // not migrated yet: check against the store's built-in accounts and move them over on success
+            user = DataStore.getInstance().authenticate(username, password);
+            if (user != null) {
+                User migrated = User.hashed(username, password, user.getRole(), User.DEFAULT_ITERATIONS);
+                users.putIfAbsent(username, migrated);
+                save();
+                return migrated;
+            }
+            missing.verifyPassword(password);
+            return null;
+        }
+        if (!user.verifyPassword(password)) return null;
+        if (user.getIterations() < User.DEFAULT_ITERATIONS) {
+            // the cost has been raised since this hash was made; upgrade now that we have the password
+            user.setPassword(password, User.DEFAULT_ITERATIONS);
+            save();
+        }
+        return user;
+    }
+
+    public User addUser(String username, String password, Role role, int iterations) {
+        User user = User.hashed(username, password, role, iterations);
+        if (users.putIfAbsent(username, user) != null) {
+            throw new IllegalArgumentException("User " + username + " already exists.");
+        }
+        save();
+        return user;
+    }
+
+    public User findUser(String username) {
+        return users.get(username);
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        try {
+            for (User user : mapper.readValue(file.toFile(), new TypeReference<List<User>>() { })) {
+                users.put(user.getUsername(), user);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read users from " + file + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            mapper.writeValue(tmp.toFile(), List.copyOf(users.values()));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not save users to " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.management.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Process-wide timers and counters. Turn them off with -Dmanagement.metrics=false: ENABLED is a
+// constant, so the JIT drops the recording code entirely and only the static lookups at class load remain.
+public final class Metrics {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("management.metrics"));
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    private Metrics() {
+
+    }
+
+    // look these up once (a static field) rather than per call
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    public static List<Timer> getTimers() {
+        List<Timer> all = new ArrayList<>(timers.values());
+        all.sort(Comparator.comparing(Timer::getName));
+        return all;
+    }
+
+    public static List<Counter> getCounters() {
+        List<Counter> all = new ArrayList<>(counters.values());
+        all.sort(Comparator.comparing(Counter::getName));
+        return all;
+    }
+
+    public static void reset() {
+        timers.values().forEach(Timer::reset);
+        counters.values().forEach(Counter::reset);
+    }
+
+    // appends one JSON line per period to the file (management.metrics.file), for looking at afterwards
+    public static synchronized void startDump(Path file, long periodSeconds) {
+        if (!ENABLED || dumper != null) return;
+        ObjectMapper mapper = new ObjectMapper();
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(mapper, file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopDump() {
+        if (dumper == null) return;
+        dumper.shutdownNow();
+        dumper = null;
+    }
+
+    private static void dump(ObjectMapper mapper, Path file) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("time", Instant.now().toString());
+        Map<String, Object> timerValues = new LinkedHashMap<>();
+        for (Timer timer : getTimers()) {
+            if (timer.getCount() == 0) continue;
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", timer.getCount());
+            values.put("meanNanos", (long) timer.getMeanNanos());
+            values.put("p50Nanos", timer.getPercentileNanos(0.5));
+            values.put("p99Nanos", timer.getPercentileNanos(0.99));
+            values.put("maxNanos", timer.getMaxNanos());
+            timerValues.put(timer.getName(), values);
+        }
+        line.put("timers", timerValues);
+        Map<String, Object> counterValues = new LinkedHashMap<>();
+        for (Counter counter : getCounters()) {
+            counterValues.put(counter.getName(), counter.get());
+        }
+        line.put("counters", counterValues);
+        try (Writer out = Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(mapper.writeValueAsString(line));
+            out.write(System.lineSeparator());
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+}
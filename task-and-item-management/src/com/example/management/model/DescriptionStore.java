@@ -0,0 +1,123 @@
+package com.example.management.model;
+
+import com.example.management.metrics.Counter;
+import com.example.management.metrics.Metrics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps long item descriptions out of the heap: they are appended to a scratch file and the Item holds only
+// the offset. Reading one goes through a small LRU of recently viewed descriptions. The file is unlinked as
+// soon as it is opened and only lives for this run; the store still saves descriptions with the items.
+//
+// The file is append-only: an edited or deleted description leaves its old bytes behind, so it grows by
+// every long description loaded or written this run (DescriptionStore.bytesWritten on the diagnostics tab).
+// That is disk, not heap, and it is gone at exit; compacting would mean rewriting every Item's offset under
+// its lock, which isn't worth it for a file that is thrown away anyway.
+public class DescriptionStore {
+    private static final int INLINE_LIMIT = 256; // chars; shorter descriptions cost less than their offset + a file read
+    private static final Counter BYTES_WRITTEN = Metrics.counter("DescriptionStore.bytesWritten");
+
+    private static DescriptionStore instance;
+
+    private final FileChannel channel; // null if the scratch file couldn't be created, then everything stays inline
+    private final AtomicLong end = new AtomicLong();
+    private final Map<Long, String> recent;
+
+    private DescriptionStore(FileChannel channel, int cacheSize) {
+        this.channel = channel;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static synchronized DescriptionStore getInstance() {
+        if (instance == null) {
+            FileChannel channel = null;
+            try {
+                Path dir = Path.of(System.getProperty("management.descriptions.dir", System.getProperty("java.io.tmpdir")));
+                channel = FileChannel.open(Files.createTempFile(dir, "descriptions", ".dat"), StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                System.err.println("Could not create the description file, keeping descriptions in memory: " + e.getMessage());
+            }
+            instance = new DescriptionStore(channel, Integer.getInteger("management.descriptions.cache", 64));
+        }
+        return instance;
+    }
+
+    // what Item should hold for this description: the text itself if it is short, otherwise its offset as a Long
+    public Object store(String description) {
+        if (channel == null || description.length() <= INLINE_LIMIT) return description;
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        long offset = end.getAndAdd(4 + bytes.length); // writers get disjoint ranges, so they don't need a lock
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes).flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write description, keeping it in memory: " + e.getMessage());
+            return description;
+        }
+        BYTES_WRITTEN.add(4 + bytes.length);
+        return offset;
+    }
+
+    public String resolve(Object stored) {
+        if (!(stored instanceof Long offset)) return (String) stored;
+        synchronized (recent) {
+            String cached = recent.get(offset);
+            if (cached != null) return cached;
+        }
+        String description = read(offset);
+        synchronized (recent) {
+            recent.put(offset, description);
+        }
+        return description;
+    }
+
+    // For bulk readers (autosave, snapshots, the API): uses the cache if the text happens to be there, but
+    // doesn't add to it, so a pass over every item doesn't push out what the dialogs are showing.
+    public String peek(Object stored) {
+        if (!(stored instanceof Long offset)) return (String) stored;
+        synchronized (recent) {
+            String cached = recent.get(offset);
+            if (cached != null) return cached;
+        }
+        return read(offset);
+    }
+
+    private String read(long offset) {
+        try {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(length, offset);
+            ByteBuffer bytes = ByteBuffer.allocate(length.flip().getInt());
+            readFully(bytes, offset + 4);
+            return new String(bytes.array(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read description at " + offset, e);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
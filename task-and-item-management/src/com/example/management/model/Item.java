@@ -1,5 +1,6 @@
 package com.example.management.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.util.ArrayList;
 import java.util.Objects;
@@ -7,17 +8,20 @@ import java.util.Objects;
 
 public class Item {
     private int id;
-    private String name;
-    private String description;
+    // written under EntityLocks by the controllers; volatile so views on other threads see the latest values
+    private volatile String name;
+    private volatile Object description; // the text, or its offset in DescriptionStore when it is long
 
 
-    private Owner owner; // can be null
-    private ArrayList<Transaction> history; // can be empty, but not null
-    private int condition;
+    private volatile Owner owner; // can be null
+    private int ownerSlot; // where the owner keeps it, see Owner
+    private ArrayList<Transaction> history; // can be empty, but not null; only the newest entries
+    private int archivedHistory; // older entries moved out to the history archive
+    private volatile int condition;
 
     public Item(String name, String description) {
-        this.name = Objects.requireNonNullElse(name, "name must not be null");
-        this.description = Objects.requireNonNullElse(description, "description must not be null");
+        this.name = Symbols.canonical(Objects.requireNonNullElse(name, "name must not be null"));
+        this.description = DescriptionStore.getInstance().store(Objects.requireNonNullElse(description, "description must not be null"));
         this.owner = null;
         this.history = new ArrayList<>();
         this.condition = 100;
@@ -29,7 +33,10 @@ public class Item {
 
     public int getId() { return id; }
     public String getName() { return name; }
-    public String getDescription() { return description; }
+    public String getDescription() { return DescriptionStore.getInstance().resolve(description); }
+    // same text, for code that reads every item (snapshots, the API): skips the recently-viewed cache
+    @JsonIgnore
+    public String getDescriptionUncached() { return DescriptionStore.getInstance().peek(description); }
     public Owner getOwner() { return owner; }
 
     public int getCondition() {
@@ -47,17 +54,34 @@ public class Item {
 
     public void setId(int id) { this.id = id; }
     public void setName(String name) {
-        this.name = Objects.requireNonNullElse(name, "name must not be null");
+        this.name = Symbols.canonical(Objects.requireNonNullElse(name, "name must not be null"));
     }
     public void setDescription(String description) {
-        this.description = Objects.requireNonNullElse(description, "description must not be null");
+        this.description = DescriptionStore.getInstance().store(Objects.requireNonNullElse(description, "description must not be null"));
     }
     public void setOwner(Owner owner) { this.owner = owner; } // package-private to restrict access
 
+    int getOwnerSlot() { return ownerSlot; }
+    void setOwnerSlot(int ownerSlot) { this.ownerSlot = ownerSlot; }
+
     public ArrayList<Transaction> getHistory() {
         return this.history;
     }
 
+    public int getArchivedHistory() {
+        return archivedHistory;
+    }
+
+    public void setArchivedHistory(int archivedHistory) {
+        this.archivedHistory = archivedHistory;
+    }
+
+    // called once the oldest entries have been written to the archive
+    public void archiveOldestHistory(int count) {
+        this.history.subList(0, count).clear();
+        this.archivedHistory += count;
+    }
+
 
     @Override
     public String toString() {
@@ -2,23 +2,35 @@ package com.example.management.model;
 import com.fasterxml.jackson.annotation.*;
 
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
 public class Owner {
+    private static final int MIN_SLOTS = 4;
+
     private int id;
     private String name;
 
-    @JsonProperty("items")
-    private final List<Item> items = new ArrayList<>();
+    // Insertion order with O(1) add, contains and remove and no per-item map entries: each item remembers its
+    // slot in this array (Item.ownerSlot), removing it just clears the slot, and the holes are squeezed out
+    // into a new array once they outnumber the items. Writers hold EntityLocks for this owner (and the item's
+    // previous owner); only single-threaded loaders (Jackson, startup) call addItem without them.
+    // getItems() reads without a lock: a slot array is only appended to or cleared in place, and a grown or
+    // compacted one is a new array, so a reader never sees an item twice or an index out of range.
+    private volatile Item[] slots = new Item[MIN_SLOTS];
+    private volatile int end;   // slots used so far, holes included
+    private volatile int count; // items held
+    private final List<Item> view = new ItemsView();
 
     public Owner(String name) {
-        this.name = Objects.requireNonNull(name, "name"); // name must not be null
+        this.name = Symbols.canonical(Objects.requireNonNull(name, "name")); // name must not be null
     }
 
     public Owner() {
@@ -26,8 +38,8 @@ public class Owner {
     }
 
     @JsonProperty("items")
-    public void setItems(List<Item> items) {
-        this.items.clear();
+    public void setItems(Collection<Item> items) {
+        removeAllItems();
         if (items != null) {
             for (Item a : items) {
                 addItem(a); // ensures back-references are in sync
@@ -38,50 +50,153 @@ public class Owner {
     public int getId() { return id; }
     public String getName() { return name; }
 
+    // live, read-only and in assignment order. Weakly consistent: iterating never throws while another thread
+    // assigns items, it just may or may not see that change; copy it if you need a stable list. get(i) is
+    // O(1) unless items were removed since the last compaction.
     @JsonProperty("items")
     public List<Item> getItems() {
-        return Collections.unmodifiableList(items); // good defensive programming: prevent external modification
+        return view;
     }
 
     public void setId(int id) { this.id = id; }
-    public void setName(String name) { this.name = Objects.requireNonNull(name, "name"); }
+    public void setName(String name) { this.name = Symbols.canonical(Objects.requireNonNull(name, "name")); }
 
     public void addItem(Item item) {
         Objects.requireNonNull(item, "items"); // item must not be null
 
-        if (this.items.contains(item)) return; // already in the collection
+        if (holds(item)) return; // already in the collection
 
         Owner currentOwner = item.getOwner();
 
-        if (currentOwner != null) {
+        if (currentOwner != null && currentOwner != this) {
             currentOwner.removeItem(item); // detach from previous owner
         }
 
         // now attach to this owner
-        items.add(item);
+        if (end == slots.length) {
+            // full: squeeze out the holes, growing only if they don't free enough
+            compact(count * 2 >= slots.length ? slots.length * 2 : slots.length);
+        }
+        int slot = end;
+        slots[slot] = item;
+        item.setOwnerSlot(slot);
+        end = slot + 1; // published after the slot is filled
+        count = count + 1;
         item.setOwner(this); // keep back-reference in sync
     }
 
     public boolean removeItem(Item item) {
-        boolean removed = items.remove(item);
-        if (removed) {
-            item.setOwner(null);
+        if (!holds(item)) return false;
+        slots[item.getOwnerSlot()] = null;
+        count = count - 1;
+        item.setOwner(null);
+        if (slots.length > MIN_SLOTS && (end - count) > count) {
+            compact(Math.max(MIN_SLOTS, Integer.highestOneBit(Math.max(1, count)) * 2));
         }
-        return removed;
+        return true;
     }
 
     public boolean removeAllItems() {
-        if (items.isEmpty()) return false;
-
-        for (Item a : items) {
-            a.setOwner(null);   // package-private
+        if (count == 0) return false;
+
+        Item[] current = slots;
+        int used = end;
+        slots = new Item[MIN_SLOTS];
+        end = 0;
+        count = 0;
+        for (int i = 0; i < used; i++) {
+            if (current[i] != null) {
+                current[i].setOwner(null);   // package-private
+            }
         }
-        items.clear();
         return true;
     }
 
+    private boolean holds(Item item) {
+        Item[] current = slots;
+        int slot = item.getOwnerSlot();
+        return slot >= 0 && slot < Math.min(end, current.length) && current[slot] == item;
+    }
+
+    // The items in order in a new array of the given capacity. The array is published before end, so a reader
+    // that sees the new array with the old end just finds empty slots past the items.
+    private void compact(int capacity) {
+        Item[] from = slots;
+        Item[] to = new Item[capacity];
+        int n = 0;
+        for (int i = 0; i < end; i++) {
+            Item item = from[i];
+            if (item != null) {
+                to[n] = item;
+                item.setOwnerSlot(n);
+                n++;
+            }
+        }
+        slots = to;
+        end = n;
+    }
+
     @Override
     public String toString() {
         return name + " (ID: " + id + ")";
     }
+
+    // read-only: AbstractList's mutators all throw
+    private final class ItemsView extends AbstractList<Item> {
+        @Override
+        public Item get(int index) {
+            Item[] current = slots;
+            int used = Math.min(end, current.length);
+            if (index >= 0 && used == count && index < used) {
+                Item item = current[index]; // no holes
+                if (item != null) return item;
+            }
+            for (int i = 0, seen = 0; i < used && index >= 0; i++) {
+                Item item = current[i];
+                if (item != null && seen++ == index) return item;
+            }
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public boolean contains(Object item) {
+            return item instanceof Item && holds((Item) item);
+        }
+
+        @Override
+        public Iterator<Item> iterator() {
+            Item[] current = slots;
+            int used = Math.min(end, current.length);
+            return new Iterator<>() {
+                private int position;
+                private Item pending = fetch(); // read once, so a removal racing the iteration can't null it
+
+                private Item fetch() {
+                    while (position < used) {
+                        Item item = current[position++];
+                        if (item != null) return item;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return pending != null;
+                }
+
+                @Override
+                public Item next() {
+                    Item item = pending;
+                    if (item == null) throw new NoSuchElementException();
+                    pending = fetch();
+                    return item;
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package com.example.management.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Store-wide table of canonical strings for values that repeat across many entities (item and owner names,
+// free-form transaction types). The setters run every value through here, so Jackson loads and new
+// entities share one copy. Entries are weak, so a name nothing uses any more drops out of the table.
+public final class Symbols {
+    private static final int STRIPES = 16;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Map<String, WeakReference<String>>[] TABLES = new Map[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            TABLES[i] = new WeakHashMap<>();
+        }
+    }
+
+    private Symbols() {
+    }
+
+    public static String canonical(String value) {
+        if (value == null) return null;
+        Map<String, WeakReference<String>> table = TABLES[(value.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (table) {
+            WeakReference<String> known = table.get(value);
+            String canonical = known != null ? known.get() : null;
+            if (canonical == null) {
+                // the value is weakly referenced from the entry too, otherwise the key could never be collected
+                table.put(value, new WeakReference<>(value));
+                canonical = value;
+            }
+            return canonical;
+        }
+    }
+}
@@ -1,86 +1,221 @@
 package com.example.management.model;
 
+import com.example.management.data.DataStore;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 
+// Kept to primitives (kind, repair payload, epoch seconds, int ids) so it is small and can be packed into
+// primitive arrays; the JSON form still has the old "type" string and "timeStamp".
 public class Transaction {
+    public static final int NONE = -1; // no owner on that side
+
+    // DateTimeFormatter is immutable and thread-safe, so one instance serves every row
+    private static final ZoneId ZONE = ZoneId.of("America/Chicago");
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss zzz").withZone(ZONE);
+
+    // "REPAIR by N" for every amount the UI accepts (0..100), [hitMax ? 1 : 0][amount], so the history
+    // table doesn't build a string per row; other amounts (only from old or hand-edited data) are built
+    private static final int CACHED_REPAIR_AMOUNTS = 101;
+    private static final String[][] REPAIR_LABELS = new String[2][CACHED_REPAIR_AMOUNTS];
+
+    static {
+        for (int amount = 0; amount < CACHED_REPAIR_AMOUNTS; amount++) {
+            REPAIR_LABELS[0][amount] = repairLabel(amount, false);
+            REPAIR_LABELS[1][amount] = repairLabel(amount, true);
+        }
+    }
 
-    private String type;
+    private TransactionKind kind = TransactionKind.OTHER;
+    private int amount;      // repair amount, 0 for other kinds
+    private boolean hitMax;  // repair was capped at 100
+    private long epochSecond;
+    private int itemId;
+    private int fromOwnerId = NONE;
+    private int toOwnerId = NONE;
+    private String otherType; // only set for TransactionKind.OTHER
+
+    public Transaction(TransactionKind kind, int amount, boolean hitMax, long epochSecond, int itemId, int toOwnerId, int fromOwnerId) {
+        this.kind = kind;
+        this.amount = amount;
+        this.hitMax = hitMax;
+        this.epochSecond = epochSecond;
+        this.itemId = itemId;
+        this.toOwnerId = toOwnerId;
+        this.fromOwnerId = fromOwnerId;
+    }
 
-    @JsonIgnore
-    private Owner fromOwner;
+    // the old form, still used by callers that build a transaction from the entities themselves
+    @Deprecated
+    public Transaction(String type, Item item, LocalDateTime timeStamp, Owner toOwner, Owner fromOwner) {
+        parseType(type);
+        this.epochSecond = toEpochSecond(timeStamp);
+        this.itemId = item != null ? item.getId() : 0;
+        this.toOwnerId = toOwner != null ? toOwner.getId() : NONE;
+        this.fromOwnerId = fromOwner != null ? fromOwner.getId() : NONE;
+    }
 
-    @JsonIgnore
-    private Owner toOwner;
+    public Transaction() {
 
-    @JsonIgnore
-    private Item item;
-    private LocalDateTime timeStamp;
+    }
 
-    public Transaction(String type, Item item, LocalDateTime timeStamp, Owner toOwner, Owner fromOwner) {
-        this.item = item;
-        this.type = type;
-        this.timeStamp = timeStamp;
-        this.toOwner = toOwner;
-        this.fromOwner = fromOwner;
+    public static Transaction assign(Item item, Owner toOwner, long epochSecond) {
+        return new Transaction(TransactionKind.ASSIGN, 0, false, epochSecond, item.getId(), toOwner.getId(), NONE);
     }
 
-    public Transaction() {
+    public static Transaction unassign(Item item, Owner fromOwner, long epochSecond) {
+        return new Transaction(TransactionKind.UNASSIGN, 0, false, epochSecond, item.getId(), NONE, fromOwner.getId());
+    }
 
+    public static Transaction repair(Item item, int amount, boolean hitMax, long epochSecond) {
+        return new Transaction(TransactionKind.REPAIR, amount, hitMax, epochSecond, item.getId(), NONE, NONE);
     }
 
     @JsonIgnore
     public String getDateTimeString() {
-        ZoneId zoneId = ZoneId.of("America/Chicago");
-        ZonedDateTime zonedDateTime = this.timeStamp.atZone(zoneId);
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss zzz");
-        return zonedDateTime.format(formatter);
-
+        return FORMATTER.format(Instant.ofEpochSecond(this.epochSecond));
     }
 
     public String getType() {
-        return type;
+        return switch (kind) {
+            case REPAIR -> amount >= 0 && amount < CACHED_REPAIR_AMOUNTS ? REPAIR_LABELS[hitMax ? 1 : 0][amount] : repairLabel(amount, hitMax);
+            case OTHER -> otherType;
+            default -> kind.name();
+        };
+    }
+
+    private static String repairLabel(int amount, boolean hitMax) {
+        return "REPAIR by " + amount + (hitMax ? " (hit max)" : "");
     }
 
+    // accepts the strings getType() produces; anything else is kept as-is
     public void setType(String type) {
-        this.type = type;
+        parseType(type);
     }
 
-    public Owner getFromOwner() {
-        return fromOwner;
+    private void parseType(String type) {
+        this.kind = TransactionKind.OTHER;
+        this.otherType = null;
+        this.amount = 0;
+        this.hitMax = false;
+        if ("ASSIGN".equals(type) || "UNASSIGN".equals(type)) {
+            this.kind = TransactionKind.valueOf(type);
+        }
+        else if (type != null && type.startsWith("REPAIR by ")) {
+            String rest = type.substring("REPAIR by ".length());
+            boolean max = rest.endsWith(" (hit max)");
+            if (max) {
+                rest = rest.substring(0, rest.length() - " (hit max)".length());
+            }
+            try {
+                this.amount = Integer.parseInt(rest);
+                this.hitMax = max;
+                this.kind = TransactionKind.REPAIR;
+            } catch (NumberFormatException e) {
+                // not one of ours, leave it as OTHER
+            }
+        }
+        if (this.kind == TransactionKind.OTHER) {
+            this.otherType = Symbols.canonical(type); // only strings that are actually kept go into the table
+        }
     }
 
-    public void setFromOwner(Owner fromOwner) {
-        this.fromOwner = fromOwner;
+    @JsonIgnore
+    public TransactionKind getKind() {
+        return kind;
     }
 
-    public Owner getToOwner() {
-        return toOwner;
+    @JsonIgnore
+    public int getAmount() {
+        return amount;
     }
 
-    public void setToOwner(Owner toOwner) {
-        this.toOwner = toOwner;
+    @JsonIgnore
+    public boolean isHitMax() {
+        return hitMax;
+    }
+
+    @JsonIgnore
+    public long getEpochSecond() {
+        return epochSecond;
+    }
+
+    // stored timestamps were wall-clock times in the display zone, so convert through that zone
+    public LocalDateTime getTimeStamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZONE);
+    }
+
+    public void setTimeStamp(LocalDateTime timeStamp) {
+        this.epochSecond = toEpochSecond(timeStamp);
     }
 
+    private static long toEpochSecond(LocalDateTime timeStamp) {
+        return timeStamp != null ? timeStamp.atZone(ZONE).toEpochSecond() : 0;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(int itemId) {
+        this.itemId = itemId;
+    }
+
+    public int getFromOwnerId() {
+        return fromOwnerId;
+    }
+
+    public void setFromOwnerId(int fromOwnerId) {
+        this.fromOwnerId = fromOwnerId;
+    }
+
+    public int getToOwnerId() {
+        return toOwnerId;
+    }
+
+    public void setToOwnerId(int toOwnerId) {
+        this.toOwnerId = toOwnerId;
+    }
+
+    // The entity getters below look the ids up in the store, so they return null once the entity is deleted
+
+    @Deprecated
+    @JsonIgnore
     public Item getItem() {
-        return item;
+        return DataStore.getInstance().findItemById(itemId);
     }
 
+    @Deprecated
+    @JsonIgnore
     public void setItem(Item item) {
-        this.item = item;
+        this.itemId = item != null ? item.getId() : 0;
     }
 
-    public LocalDateTime getTimeStamp() {
-        return timeStamp;
+    @Deprecated
+    @JsonIgnore
+    public Owner getFromOwner() {
+        return fromOwnerId != NONE ? DataStore.getInstance().findOwnersById(fromOwnerId) : null;
     }
 
-    public void setTimeStamp(LocalDateTime timeStamp) {
-        this.timeStamp = timeStamp;
+    @Deprecated
+    @JsonIgnore
+    public void setFromOwner(Owner fromOwner) {
+        this.fromOwnerId = fromOwner != null ? fromOwner.getId() : NONE;
+    }
+
+    @Deprecated
+    @JsonIgnore
+    public Owner getToOwner() {
+        return toOwnerId != NONE ? DataStore.getInstance().findOwnersById(toOwnerId) : null;
+    }
+
+    @Deprecated
+    @JsonIgnore
+    public void setToOwner(Owner toOwner) {
+        this.toOwnerId = toOwner != null ? toOwner.getId() : NONE;
     }
 
 
@@ -0,0 +1,8 @@
+package com.example.management.model;
+
+public enum TransactionKind {
+    ASSIGN,
+    UNASSIGN,
+    REPAIR,
+    OTHER // a free-form type from older data that doesn't match the ones above
+}
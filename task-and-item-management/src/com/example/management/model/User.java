@@ -1,21 +1,107 @@
 package com.example.management.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
 public class User {
+    // PBKDF2 work factor for new hashes; each stored hash keeps the cost it was made with
+    public static final int DEFAULT_ITERATIONS = Integer.getInteger("management.password.iterations", 210_000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 512;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private String username;
-    private String password;
+    private String password;     // plaintext, only for accounts built in code (the store's defaults); never saved
+    private String passwordHash; // "pbkdf2-sha512$<iterations>$<salt>$<hash>", base64
     private Role role;
 
+    // Cheap on purpose: constructing a User doesn't hash (that costs ~100 ms at the default work factor).
+    // Accounts that get stored are made with hashed() or setPassword().
     public User(String username, String password, Role role) {
         this.username = username;
         this.password = password;
         this.role = role;
     }
 
+    public User() {
+
+    }
+
+    public static User hashed(String username, String password, Role role, int iterations) {
+        User user = new User(username, null, role);
+        user.setPassword(password, iterations);
+        return user;
+    }
+
     public String getUsername() { return username; }
-    public String getPassword() { return password; }
+    public String getPasswordHash() { return passwordHash; }
     public Role getRole() { return role; }
 
+    // the store's built-in accounts are still checked against this
+    @Deprecated
+    @JsonIgnore
+    public String getPassword() { return password; }
+
+    public void setUsername(String username) { this.username = username; }
+    public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+    public void setRole(Role role) { this.role = role; }
+
+    @JsonIgnore
     public boolean isAdmin() {
         return role == Role.ADMIN;
     }
+
+    // 0 for a plaintext account, so it counts as below any work factor
+    @JsonIgnore
+    public int getIterations() {
+        if (passwordHash == null) return 0;
+        String[] parts = passwordHash.split("\\$");
+        return Integer.parseInt(parts[1]);
+    }
+
+    public boolean verifyPassword(String password) {
+        if (passwordHash == null) {
+            return this.password != null && password != null && MessageDigest.isEqual(
+                    this.password.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = passwordHash.split("\\$");
+        if (parts.length != 4) return false;
+        byte[] salt = Base64.getDecoder().decode(parts[2]);
+        byte[] expected = Base64.getDecoder().decode(parts[3]);
+        byte[] actual = derive(password, salt, Integer.parseInt(parts[1]));
+        return MessageDigest.isEqual(expected, actual); // constant time
+    }
+
+    public void setPassword(String password, int iterations) {
+        this.passwordHash = hash(password, iterations);
+        this.password = null;
+    }
+
+    private static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return "pbkdf2-sha512$" + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(password, salt, iterations));
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
 }
@@ -13,10 +13,13 @@ public class DashboardView extends BorderPane {
     private DashboardController controller;
     private final ItemView itemView;
     private final OwnerView ownerView;
+    private final DiagnosticsView diagnosticsView;
 
     public DashboardView() {
         this.itemView = new ItemView();
-        this.ownerView = new OwnerView(this.itemView);
+        this.ownerView = new OwnerView();
+        this.diagnosticsView = new DiagnosticsView();
+        this.diagnosticsView.start();
 
         setTop(createHeader());
         setLeft(createSidebar());
@@ -52,9 +55,22 @@ public class DashboardView extends BorderPane {
         wizardBtn.setOnAction(e -> this.setCenter(ownerView));
 
         menu.getChildren().addAll(artifactBtn, wizardBtn);
+        if (DataStore.getInstance().getCurrentUser().isAdmin()) {
+            Button diagnosticsBtn = new Button("Diagnostics");
+            diagnosticsBtn.setMaxWidth(Double.MAX_VALUE);
+            diagnosticsBtn.setOnAction(e -> this.setCenter(diagnosticsView));
+            menu.getChildren().add(diagnosticsBtn);
+        }
         return menu;
     }
 
+    // stop the child views from listening to store changes once this dashboard is gone
+    public void dispose() {
+        this.itemView.dispose();
+        this.ownerView.dispose();
+        this.diagnosticsView.dispose();
+    }
+
     public void setController(DashboardController dashboardController) {
         this.controller = dashboardController;
     }
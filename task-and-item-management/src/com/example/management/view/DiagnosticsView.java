@@ -0,0 +1,97 @@
+package com.example.management.view;
+
+import com.example.management.metrics.Counter;
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+// Live view of the metrics registry; once started, re-reads the timers once a second while it is showing.
+public final class DiagnosticsView extends VBox {
+    private final TableView<Timer> timerTable = new TableView<>();
+    private final ObservableList<Timer> timers = FXCollections.observableArrayList();
+    private final Label counterLabel = new Label();
+    private final Timeline refresher = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    public DiagnosticsView() {
+        TableColumn<Timer, String> nameCol = new TableColumn<>("Operation");
+        nameCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getName()));
+        nameCol.setPrefWidth(260);
+
+        TableColumn<Timer, Number> countCol = new TableColumn<>("Count");
+        countCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getCount()));
+
+        List<TableColumn<Timer, ?>> columns = List.of(nameCol, countCol,
+                millisColumn("Mean ms", Timer::getMeanNanos),
+                millisColumn("p50 ms", timer -> timer.getPercentileNanos(0.5)),
+                millisColumn("p99 ms", timer -> timer.getPercentileNanos(0.99)),
+                millisColumn("Max ms", Timer::getMaxNanos));
+        timerTable.getColumns().setAll(columns);
+        timerTable.setItems(timers);
+        timerTable.setPrefHeight(300);
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            Metrics.reset();
+            refresh();
+        });
+
+        setSpacing(10);
+        setPadding(new Insets(10));
+        if (!Metrics.ENABLED) {
+            getChildren().add(new Label("Metrics are turned off (-Dmanagement.metrics=false)."));
+            return;
+        }
+        getChildren().addAll(timerTable, counterLabel, new HBox(10, resetButton));
+        refresher.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    // call once the view is built; stopped by dispose()
+    public void start() {
+        if (!Metrics.ENABLED) return;
+        // only poll while the tab is on screen
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) {
+                refresh();
+                refresher.play();
+            }
+            else {
+                refresher.stop();
+            }
+        });
+    }
+
+    private TableColumn<Timer, Number> millisColumn(String title, ToDoubleFunction<Timer> nanos) {
+        TableColumn<Timer, Number> column = new TableColumn<>(title);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(Math.round(nanos.applyAsDouble(cell.getValue()) / 1_000.0) / 1_000.0));
+        return column;
+    }
+
+    private void refresh() {
+        timers.setAll(Metrics.getTimers().stream().filter(timer -> timer.getCount() > 0).toList());
+        timerTable.refresh();
+        counterLabel.setText(Metrics.getCounters().stream()
+                .map(counter -> counter.getName() + ": " + counter.get())
+                .collect(Collectors.joining("    ")));
+    }
+
+    public void dispose() {
+        refresher.stop();
+    }
+}
@@ -1,29 +1,72 @@
 package com.example.management.view;
 
 import com.example.management.controller.ItemController;
+import com.example.management.controller.SortKey;
+import com.example.management.data.ChangeEvent;
+import com.example.management.data.ChangeEvents;
 import com.example.management.data.DataStore;
+import com.example.management.data.SortKeyIndex;
+import com.example.management.metrics.Counter;
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
 import com.example.management.model.Item;
 import com.example.management.model.Transaction;
-import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.util.Duration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class ItemView extends VBox{
+    private static final int SEARCH_LIMIT = 1000;
+    private static final Duration SEARCH_DELAY = Duration.millis(150);
+    private static final Timer APPLY_CHANGES_TIMER = Metrics.timer("ItemView.applyItemChanges");
+    private static final Timer SEARCH_TIMER = Metrics.timer("ItemView.search"); // keystroke settled to results shown
+    private static final Counter DROPPED_SEARCHES = Metrics.counter("ItemView.droppedSearches");
+
     private final ItemController controller;
     private final TableView<Item> itemTable;
-    private final ObservableList<Item> itemData;
+    private final Map<TableColumn<Item, ?>, SortKey> sortKeys = new IdentityHashMap<>();
+    private PagedList<Item> itemData;
+    private SortKey sortKey = SortKey.ID;
+    private boolean descending;
+    private Comparator<Item> searchOrder; // null while no column is sorted: results stay in match order
+    private final ObservableList<Item> searchData = FXCollections.observableArrayList();
+    private final SearchPipeline<List<Item>> searchPipeline;
+    private final Consumer<List<ChangeEvent<Item>>> itemListener = this::applyItemChanges;
+    private final Map<Item, ItemRow> rows = new WeakHashMap<>();
+    private final boolean admin;
 
     public ItemView() {
         this.controller = new ItemController();
         this.itemTable = new TableView<>();
-        this.itemData = FXCollections.observableArrayList(controller.findAllItems());
+        this.admin = DataStore.getInstance().getCurrentUser().isAdmin();
+        this.itemData = pagedItems(SortKey.ID, false);
+        this.searchPipeline = new SearchPipeline<>(SEARCH_DELAY,
+                query -> controller.searchItems(query, SEARCH_LIMIT), this::showSearchResults);
+        long[] reportedDrops = new long[1];
+        this.searchPipeline.setStats((query, latencyNanos, droppedQueries) -> {
+            SEARCH_TIMER.record(latencyNanos);
+            DROPPED_SEARCHES.add(droppedQueries - reportedDrops[0]);
+            reportedDrops[0] = droppedQueries;
+        });
+        ChangeEvents.getInstance().addItemListener(this.itemListener);
 
         setSpacing(10);
         setPadding(new Insets(10));
@@ -32,28 +75,20 @@ public class ItemView extends VBox{
 
     private TableView<Item> createTable() {
         TableColumn<Item, Number> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getId()));
+        idCol.setCellValueFactory(cell -> rowFor(cell.getValue()).id.getReadOnlyProperty());
 
         TableColumn<Item, String> nameCol = new TableColumn<>("Name");
-        nameCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getName()));
+        nameCol.setCellValueFactory(cell -> rowFor(cell.getValue()).name.getReadOnlyProperty());
 
         TableColumn<Item, Number> conditionCol = new TableColumn<>("Condition");
-        conditionCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getCondition()));
+        conditionCol.setCellValueFactory(cell -> rowFor(cell.getValue()).condition.getReadOnlyProperty());
 
         TableColumn<Item, String> ownerCol = new TableColumn<>("Owner");
-        ownerCol.setCellValueFactory(cell ->  {
-            Item item = cell.getValue();
-            String ownerString;
-            if (item.getOwner() == null) {
-                ownerString = "--";
-            }
-            else {
-                ownerString = item.getOwner().getName();
-            }
-            return new ReadOnlyStringWrapper(ownerString);
-        });
+        ownerCol.setCellValueFactory(cell -> rowFor(cell.getValue()).ownerName.getReadOnlyProperty());
 
-        TableColumn<Item, Void> actionCol = new TableColumn<>("Actions");
+        // the cell value is whether the item has an owner, which is all the buttons depend on
+        TableColumn<Item, Boolean> actionCol = new TableColumn<>("Actions");
+        actionCol.setCellValueFactory(cell -> rowFor(cell.getValue()).assigned.getReadOnlyProperty());
         actionCol.setCellFactory(col -> new TableCell<>() {
             private final Button viewButton = new Button("View");
             private final Button editButton = new Button("Edit");
@@ -63,6 +98,11 @@ public class ItemView extends VBox{
             private final Button repairButton = new Button("Repair");
             private final HBox buttons = new HBox(5);
             {
+                buttons.getChildren().addAll(viewButton, historyButton);
+                if (admin) {
+                    buttons.getChildren().addAll(editButton, repairButton, deleteButton, unassignButton);
+                }
+
                 viewButton.setOnAction(e -> {
                     Item item = getTableView().getItems().get(getIndex());
                     showViewItemDialog(item);
@@ -81,13 +121,11 @@ public class ItemView extends VBox{
                 repairButton.setOnAction(e -> {
                     Item item = getTableView().getItems().get(getIndex());
                     showRepairItemDialog(item);
-                    refreshItems();
                 });
 
                 unassignButton.setOnAction( e -> {
                     Item item = getTableView().getItems().get(getIndex());
                     unassignItemFromOwner(item);
-                    refreshItems();
                 });
 
                 deleteButton.setOnAction(e -> {
@@ -100,35 +138,37 @@ public class ItemView extends VBox{
                     confirm.showAndWait().ifPresent(response -> {
                         if (response == ButtonType.OK) {
                             controller.deleteItem(item.getId());
-                            refreshItems();
                         }
                     });
                 });
             }
 
             @Override
-            protected void updateItem(Void old_item, boolean empty) {
-                super.updateItem(old_item, empty);
-                if (empty || getIndex() >= itemData.size()) {
+            protected void updateItem(Boolean assigned, boolean empty) {
+                super.updateItem(assigned, empty);
+                if (empty || assigned == null) {
                     setGraphic(null);
                 } else {
-                    Item item = getTableView().getItems().get(getIndex());
-                    buttons.getChildren().clear();
-                    buttons.getChildren().add(viewButton);
-                    buttons.getChildren().add(historyButton);
-                    if (DataStore.getInstance().getCurrentUser().isAdmin()) {
-                        buttons.getChildren().addAll(editButton, repairButton, deleteButton);
-                        if(item.getOwner() != null) {
-                            buttons.getChildren().add(unassignButton);
-                        }
-                    }
+                    unassignButton.setVisible(assigned);
+                    unassignButton.setManaged(assigned);
                     setGraphic(buttons);
                 }
             }
         });
 
         itemTable.getColumns().setAll(idCol, nameCol, conditionCol, actionCol, ownerCol);
+        // the store does the sorting: each sortable column pages through an index in its order
+        sortKeys.put(idCol, SortKey.ID);
+        sortKeys.put(nameCol, SortKey.NAME);
+        sortKeys.put(conditionCol, SortKey.CONDITION);
+        actionCol.setSortable(false);
+        ownerCol.setSortable(false);
+        itemTable.setSortPolicy(table -> {
+            sortBy(table.getSortOrder());
+            return true;
+        });
         itemTable.setItems(itemData);
+        itemTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         itemTable.setPrefHeight(300);
         actionCol.setPrefWidth(360);
         ownerCol.setPrefWidth(150);
@@ -136,6 +176,45 @@ public class ItemView extends VBox{
         return itemTable;
     }
 
+    private PagedList<Item> pagedItems(SortKey key, boolean descending) {
+        return new PagedList<>(new PagedList.Provider<>() {
+            @Override
+            public int count() { return controller.countItems(); }
+            @Override
+            public List<Item> fetch(int offset, int limit) { return controller.findItems(key, offset, limit, descending); }
+            @Override
+            public int positionOf(Item item) { return controller.positionOf(key, item, descending); }
+        });
+    }
+
+    private void sortBy(List<TableColumn<Item, ?>> sortOrder) {
+        TableColumn<Item, ?> column = sortOrder.isEmpty() ? null : sortOrder.get(0);
+        SortKey key = column != null ? sortKeys.getOrDefault(column, SortKey.ID) : SortKey.ID;
+        boolean desc = column != null && column.getSortType() == TableColumn.SortType.DESCENDING;
+        if (key != sortKey || desc != descending) {
+            sortKey = key;
+            descending = desc;
+            itemData = pagedItems(key, desc);
+            if (itemTable.getItems() != searchData) {
+                itemTable.setItems(itemData);
+            }
+        }
+        // search results are already all loaded, so those are sorted here
+        searchOrder = column != null ? comparator(key, desc) : null;
+        if (searchOrder != null) {
+            FXCollections.sort(searchData, searchOrder);
+        }
+    }
+
+    private static Comparator<Item> comparator(SortKey key, boolean descending) {
+        Comparator<Item> order = switch (key) {
+            case ID -> Comparator.comparingInt(Item::getId);
+            case NAME -> Comparator.comparing(Item::getName, SortKeyIndex.NAME_ORDER).thenComparingInt(Item::getId);
+            case CONDITION -> Comparator.comparingInt(Item::getCondition).thenComparingInt(Item::getId);
+        };
+        return descending ? order.reversed() : order;
+    }
+
     private void unassignItemFromOwner(Item item) {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Confirm Unassignment");
@@ -147,7 +226,6 @@ public class ItemView extends VBox{
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 controller.unassignItemFromOwner(item.getOwner(), item);
-                refreshItems();
             }
         });
 
@@ -156,14 +234,32 @@ public class ItemView extends VBox{
 
     private HBox createButtons() {
         Button addBtn = new Button("Add");
+        Button deleteSelectedBtn = new Button("Delete Selected");
         HBox box = new HBox(10);
-        if (DataStore.getInstance().getCurrentUser().isAdmin()) {
+        if (admin) {
             addBtn.setOnAction(e -> showAddItemDialog());
-            box.getChildren().add(addBtn);
+            deleteSelectedBtn.setOnAction(e -> deleteSelectedItems());
+            box.getChildren().addAll(addBtn, deleteSelectedBtn);
         }
         return box;
     }
 
+    private void deleteSelectedItems() {
+        List<Item> selected = List.copyOf(itemTable.getSelectionModel().getSelectedItems());
+        if (selected.isEmpty()) return;
+
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Confirm Deletion");
+        confirm.setHeaderText("Delete Items");
+        confirm.setContentText("Are you sure you want to delete " + selected.size() + " selected item(s)?");
+
+        confirm.showAndWait().ifPresent(response -> {
+            if (response == ButtonType.OK) {
+                controller.deleteItems(selected.stream().map(Item::getId).toList());
+            }
+        });
+    }
+
     private HBox createSearchBar() {
         Label label = new Label("Search By Item Name: ");
         TextField search = new TextField();
@@ -171,26 +267,30 @@ public class ItemView extends VBox{
         HBox box = new HBox(30);
         box.getChildren().add(label);
         box.getChildren().add(search);
-        search.setOnKeyReleased(e -> searchItems(search.getText().toLowerCase()));
+        search.setOnKeyReleased(e -> searchItems(search.getText()));
         return box;
     }
 
     private void searchItems(String searchString) {
         if (searchString.isEmpty()) {
+            searchPipeline.cancel();
             itemTable.setItems(itemData);
-            refreshItems();
             return;
         }
+        searchPipeline.submit(searchString);
+    }
 
-        FilteredList<Item> filteredData = new FilteredList<>(itemData);
-
-        filteredData.setPredicate(item -> {
-            return item.getName().toLowerCase().contains(searchString);
-        });
-
-        itemTable.setItems(filteredData);
-        refreshItems();
+    private void showSearchResults(List<Item> results) {
+        if (searchOrder != null) {
+            results = new ArrayList<>(results);
+            results.sort(searchOrder);
+        }
+        searchData.setAll(results);
+        itemTable.setItems(searchData);
+    }
 
+    public SearchPipeline<List<Item>> getSearchPipeline() {
+        return searchPipeline;
     }
 
 
@@ -212,14 +312,12 @@ public class ItemView extends VBox{
         dialog.setResultConverter(button -> {
             if (button == ButtonType.OK) {
                 Item item = controller.addItem(nameField.getText(), descField.getText());
-                refreshItems();
                 return item;
             }
             return null;
         });
 
         dialog.showAndWait().ifPresent(item -> {
-            itemData.setAll(controller.findAllItems());
             itemTable.getSelectionModel().select(item);
         });
     }
@@ -250,7 +348,6 @@ public class ItemView extends VBox{
                 if (Integer.parseInt(amount.getText()) >= 0 && Integer.parseInt(amount.getText()) <= 100) {
                     boolean hitMax = controller.repairItem(item, Integer.parseInt(amount.getText()));
                     repairConfirmation(item, Integer.parseInt(amount.getText()), dialog, hitMax);
-                    refreshItems();
                 }
                 else {
                     invalidRepairPopup();
@@ -314,7 +411,6 @@ public class ItemView extends VBox{
         dialog.setResultConverter(button -> {
             if (button == ButtonType.OK) {
                 controller.updateItem(item.getId(), nameField.getText(), descField.getText());
-                refreshItems();
             }
             return null;
         });
@@ -350,45 +446,36 @@ public class ItemView extends VBox{
 
     public void showHistoryItemDialog(Item item) {
         if (item == null) return;
-        List<Transaction> copy = item.getHistory().reversed();
-        ObservableList<Transaction> historyData = FXCollections.observableArrayList(copy);
+        // pages newest-first through the in-memory tail and then the archived segments, on demand
+        PagedList<Transaction> historyData = new PagedList<>(new PagedList.Provider<>() {
+            @Override
+            public int count() { return controller.countHistory(item); }
+            @Override
+            public List<Transaction> fetch(int offset, int limit) { return controller.findHistory(item, offset, limit); }
+            @Override
+            public int positionOf(Transaction transaction) { return -1; }
+        });
         Dialog dialog = new Dialog();
         dialog.setTitle("Item History");
         dialog.setHeaderText("Assignment History of: " + item.getName());
 
         TableView<Transaction> table = new TableView();
 
+        // rows are formatted once per transaction; later layout passes reuse the same properties
+        Map<Transaction, HistoryRow> historyRows = new IdentityHashMap<>();
+        Function<Transaction, HistoryRow> rowOf = t -> historyRows.computeIfAbsent(t, HistoryRow::new);
+
         TableColumn<Transaction, String> timeStampCol = new TableColumn<>("Time Stamp");
-        timeStampCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getDateTimeString()));
+        timeStampCol.setCellValueFactory(cell -> rowOf.apply(cell.getValue()).timeStamp.getReadOnlyProperty());
 
         TableColumn<Transaction, String> typeCol = new TableColumn<>("Type");
-        typeCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getType()));
+        typeCol.setCellValueFactory(cell -> rowOf.apply(cell.getValue()).type.getReadOnlyProperty());
 
         TableColumn<Transaction, String> toOwnerCol = new TableColumn<>("To Owner");
-        toOwnerCol.setCellValueFactory(cell ->  {
-            Transaction t = cell.getValue();
-            String ownerString;
-            if (t.getToOwner() == null) {
-                ownerString = "--";
-            }
-            else {
-                ownerString = t.getToOwner().getName();
-            }
-            return new ReadOnlyStringWrapper(ownerString);
-        });
+        toOwnerCol.setCellValueFactory(cell -> rowOf.apply(cell.getValue()).toOwner.getReadOnlyProperty());
 
         TableColumn<Transaction, String> fromOwnerCol = new TableColumn<>("From Owner");
-        fromOwnerCol.setCellValueFactory(cell ->  {
-            Transaction t = cell.getValue();
-            String ownerString;
-            if (t.getFromOwner() == null) {
-                ownerString = "--";
-            }
-            else {
-                ownerString = t.getFromOwner().getName();
-            }
-            return new ReadOnlyStringWrapper(ownerString);
-        });
+        fromOwnerCol.setCellValueFactory(cell -> rowOf.apply(cell.getValue()).fromOwner.getReadOnlyProperty());
 
         table.getColumns().setAll(timeStampCol, typeCol, toOwnerCol, fromOwnerCol);
         table.setItems(historyData);
@@ -404,7 +491,90 @@ public class ItemView extends VBox{
 
     }
 
-    public void refreshItems() {
-        itemData.setAll(controller.findAllItems());
+    // apply store deltas in place instead of reloading the whole table
+    private void applyItemChanges(List<ChangeEvent<Item>> changes) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> applyItemChanges(changes));
+            return;
+        }
+        long start = APPLY_CHANGES_TIMER.start();
+        try {
+            List<Item> added = new ArrayList<>();
+            List<Item> removed = new ArrayList<>();
+            boolean updated = false;
+            for (ChangeEvent<Item> change : changes) {
+                switch (change.getType()) {
+                    case ADDED -> added.add(change.getEntity());
+                    case UPDATED -> {
+                        ItemRow row = rows.get(change.getEntity());
+                        if (row != null) row.update(change.getEntity()); // bound cells pick this up
+                        updated = true;
+                    }
+                    case REMOVED -> removed.add(change.getEntity());
+                }
+            }
+            if (updated && sortKey != SortKey.ID) {
+                itemData.reordered(); // a new name or condition may have moved rows
+            }
+            if (updated && searchOrder != null) {
+                FXCollections.sort(searchData, searchOrder);
+            }
+            if (!added.isEmpty()) {
+                itemData.added(added);
+            }
+            if (!removed.isEmpty()) {
+                itemData.removed(removed);
+                Set<Item> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+                gone.addAll(removed);
+                searchData.removeAll(gone);
+            }
+        } finally {
+            APPLY_CHANGES_TIMER.stop(start);
+        }
+    }
+
+    private ItemRow rowFor(Item item) {
+        return rows.computeIfAbsent(item, ItemRow::new);
+    }
+
+    // Cached per item (weakly, Item has identity equality) so cells bind to the same properties on every
+    // layout pass instead of getting new wrappers; updated in place when the item changes.
+    private static final class ItemRow {
+        private final ReadOnlyIntegerWrapper id = new ReadOnlyIntegerWrapper();
+        private final ReadOnlyStringWrapper name = new ReadOnlyStringWrapper();
+        private final ReadOnlyIntegerWrapper condition = new ReadOnlyIntegerWrapper();
+        private final ReadOnlyStringWrapper ownerName = new ReadOnlyStringWrapper();
+        private final ReadOnlyBooleanWrapper assigned = new ReadOnlyBooleanWrapper();
+
+        private ItemRow(Item item) {
+            update(item);
+        }
+
+        private void update(Item item) {
+            id.set(item.getId());
+            name.set(item.getName());
+            condition.set(item.getCondition());
+            ownerName.set(item.getOwner() == null ? "--" : item.getOwner().getName());
+            assigned.set(item.getOwner() != null);
+        }
+    }
+
+    private final class HistoryRow {
+        private final ReadOnlyStringWrapper timeStamp;
+        private final ReadOnlyStringWrapper type;
+        private final ReadOnlyStringWrapper toOwner;
+        private final ReadOnlyStringWrapper fromOwner;
+
+        private HistoryRow(Transaction transaction) {
+            this.timeStamp = new ReadOnlyStringWrapper(transaction.getDateTimeString());
+            this.type = new ReadOnlyStringWrapper(transaction.getType());
+            this.toOwner = new ReadOnlyStringWrapper(controller.ownerName(transaction.getToOwnerId()));
+            this.fromOwner = new ReadOnlyStringWrapper(controller.ownerName(transaction.getFromOwnerId()));
+        }
+    }
+
+    public void dispose() {
+        ChangeEvents.getInstance().removeItemListener(this.itemListener);
+        this.searchPipeline.shutdown();
     }
 }
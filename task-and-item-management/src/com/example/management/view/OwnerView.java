@@ -1,28 +1,49 @@
 package com.example.management.view;
 
 import com.example.management.controller.OwnerController;
+import com.example.management.controller.SortKey;
+import com.example.management.data.ChangeEvent;
+import com.example.management.data.ChangeEvents;
 import com.example.management.data.DataStore;
+import com.example.management.metrics.Metrics;
+import com.example.management.metrics.Timer;
 import com.example.management.model.Item;
 import com.example.management.model.Owner;
-import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
 public class OwnerView extends VBox{
+    private static final int ASSIGN_PAGE_SIZE = 100;
+    private static final Timer APPLY_CHANGES_TIMER = Metrics.timer("OwnerView.applyOwnerChanges");
+
     private final OwnerController controller;
     private final TableView<Owner> ownerTable;
-    private final ObservableList<Owner> ownerData;
-    private final ItemView itemView;
+    private final Map<TableColumn<Owner, ?>, SortKey> sortKeys = new IdentityHashMap<>();
+    private PagedList<Owner> ownerData;
+    private SortKey sortKey = SortKey.ID;
+    private boolean descending;
+    private final Consumer<List<ChangeEvent<Owner>>> ownerListener = this::applyOwnerChanges;
+    private final Map<Owner, OwnerRow> rows = new WeakHashMap<>();
+    private final boolean admin;
 
-    public OwnerView(ItemView itemView) {
+    public OwnerView() {
         this.controller = new OwnerController();
         this.ownerTable = new TableView<>();
-        this.ownerData = FXCollections.observableArrayList(controller.findAllOwners());
-        this.itemView = itemView;
+        this.admin = DataStore.getInstance().getCurrentUser().isAdmin();
+        this.ownerData = pagedOwners(SortKey.ID, false);
+        ChangeEvents.getInstance().addOwnerListener(this.ownerListener);
 
         setSpacing(10);
         setPadding(new Insets(10));
@@ -31,10 +52,10 @@ public class OwnerView extends VBox{
 
     private TableView<Owner> createTable() {
         TableColumn<Owner, Number> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getId()));
+        idCol.setCellValueFactory(cell -> rowFor(cell.getValue()).id.getReadOnlyProperty());
 
         TableColumn<Owner, String> nameCol = new TableColumn<>("Name");
-        nameCol.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getName()));
+        nameCol.setCellValueFactory(cell -> rowFor(cell.getValue()).name.getReadOnlyProperty());
 
         TableColumn<Owner, Void> actionCol = new TableColumn<>("Actions");
 
@@ -43,9 +64,15 @@ public class OwnerView extends VBox{
             private final Button editButton = new Button("Edit");
             private final Button deleteButton = new Button("Delete");
             private final Button assignButton = new Button("Assign");
+            private final Button unassignAllButton = new Button("Unassign All");
             private final HBox buttons = new HBox(5);
 
             {
+                buttons.getChildren().add(viewButton);
+                if (admin) {
+                    buttons.getChildren().addAll(editButton, deleteButton, assignButton, unassignAllButton);
+                }
+
                 viewButton.setOnAction(e -> {
                     Owner owner = getTableView().getItems().get(getIndex());
                     showViewOwnerDialog(owner);
@@ -65,8 +92,6 @@ public class OwnerView extends VBox{
                     confirm.showAndWait().ifPresent(response -> {
                         if (response == ButtonType.OK) {
                             controller.deleteOwner(owner.getId());
-                            ownerData.setAll(controller.findAllOwners());
-                            itemView.refreshItems();
                         }
                     });
                 });
@@ -75,34 +100,69 @@ public class OwnerView extends VBox{
                     Owner owner = getTableView().getItems().get(getIndex());
                     showAssignItemDialogFor(owner);
                 });
+
+                unassignAllButton.setOnAction(e -> {
+                    Owner owner = getTableView().getItems().get(getIndex());
+                    Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                    confirm.setTitle("Confirm Unassignment");
+                    confirm.setHeaderText("Unassign All Items");
+                    confirm.setContentText("Are you sure you want to unassign all items from \"" + owner.getName() + "\"?");
+                    confirm.showAndWait().ifPresent(response -> {
+                        if (response == ButtonType.OK) {
+                            controller.unassignAllItems(owner);
+                        }
+                    });
+                });
             }
 
             @Override
             protected void updateItem(Void item, boolean empty) {
                 super.updateItem(item, empty);
-                if (empty || getIndex() >= ownerData.size()) {
-                    setGraphic(null);
-                } else {
-                    buttons.getChildren().clear();
-                    buttons.getChildren().add(viewButton);
-                    if (DataStore.getInstance().getCurrentUser().isAdmin()) {
-                        buttons.getChildren().addAll(editButton, deleteButton, assignButton);
-                    }
-                    setGraphic(buttons);
-                }
+                setGraphic(empty || getIndex() >= ownerData.size() ? null : buttons);
             }
         });
 
         ownerTable.getColumns().setAll(idCol, nameCol, actionCol);
+        // sorted by the store, through an index per column, like ItemView
+        sortKeys.put(idCol, SortKey.ID);
+        sortKeys.put(nameCol, SortKey.NAME);
+        actionCol.setSortable(false);
+        ownerTable.setSortPolicy(table -> {
+            sortBy(table.getSortOrder());
+            return true;
+        });
         ownerTable.setItems(ownerData);
         ownerTable.setPrefHeight(300);
         return ownerTable;
     }
 
+    private PagedList<Owner> pagedOwners(SortKey key, boolean descending) {
+        return new PagedList<>(new PagedList.Provider<>() {
+            @Override
+            public int count() { return controller.countOwners(); }
+            @Override
+            public List<Owner> fetch(int offset, int limit) { return controller.findOwners(key, offset, limit, descending); }
+            @Override
+            public int positionOf(Owner owner) { return controller.positionOf(key, owner, descending); }
+        });
+    }
+
+    private void sortBy(List<TableColumn<Owner, ?>> sortOrder) {
+        TableColumn<Owner, ?> column = sortOrder.isEmpty() ? null : sortOrder.get(0);
+        SortKey key = column != null ? sortKeys.getOrDefault(column, SortKey.ID) : SortKey.ID;
+        boolean desc = column != null && column.getSortType() == TableColumn.SortType.DESCENDING;
+        if (key != sortKey || desc != descending) {
+            sortKey = key;
+            descending = desc;
+            ownerData = pagedOwners(key, desc);
+            ownerTable.setItems(ownerData);
+        }
+    }
+
     private HBox createButtons() {
         Button addBtn = new Button("Add");
         HBox buttonBox = new HBox(10);
-        if (DataStore.getInstance().getCurrentUser().isAdmin()) {
+        if (admin) {
             addBtn.setOnAction(e -> showAddOwnerDialog());
             buttonBox.getChildren().add(addBtn);
         }
@@ -117,9 +177,7 @@ public class OwnerView extends VBox{
         dialog.showAndWait().ifPresent(name -> {
             if (!name.isBlank()) {
                 Owner owner = controller.addOwner(name);
-                ownerData.setAll(controller.findAllOwners());
                 ownerTable.getSelectionModel().select(owner);
-                itemView.refreshItems();
             }
         });
     }
@@ -134,43 +192,55 @@ public class OwnerView extends VBox{
         dialog.showAndWait().ifPresent(name -> {
             if (!name.isBlank()) {
                 controller.updateOwner(owner.getId(), name);
-                ownerData.setAll(controller.findAllOwners());
-                itemView.refreshItems();
             }
         });
     }
 
     private void showAssignItemDialogFor(Owner owner) {
-        var unowned = FXCollections.observableArrayList(controller.getUnassignedItems());
-
-        if (unowned.isEmpty()) {
+        if (controller.countUnassignedItems() == 0) {
             Alert alert = new Alert(Alert.AlertType.INFORMATION, "No unassigned items available.");
             alert.setHeaderText("Nothing to assign");
             alert.showAndWait();
             return;
         }
 
-        ChoiceDialog<Item> dialog = new ChoiceDialog<>(unowned.get(0), unowned);
-        dialog.setTitle("Assign Item");
+        // only the first page is fetched up front, the rest is pulled in with "Load More"
+        ListView<Item> unowned = new ListView<>();
+        unowned.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        Button moreButton = new Button("Load More");
+        moreButton.setOnAction(e -> loadUnassignedPage(unowned, moreButton));
+        loadUnassignedPage(unowned, moreButton);
+        unowned.getSelectionModel().selectFirst();
+
+        VBox content = new VBox(10, unowned, moreButton);
+        content.setPadding(new Insets(10));
+
+        Dialog<List<Item>> dialog = new Dialog<>();
+        dialog.setTitle("Assign Items");
         dialog.setHeaderText("Assign to " + owner.getName());
+        dialog.getDialogPane().setContent(content);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        dialog.setResultConverter(button -> button == ButtonType.OK ? List.copyOf(unowned.getSelectionModel().getSelectedItems()) : null);
 
-        dialog.showAndWait().ifPresent(item -> {
-            boolean success = controller.assignItemToOwner(owner, item);
-            if (success) {
-                ownerData.setAll(controller.findAllOwners());
-                ownerTable.getSelectionModel().select(owner);
-                itemView.refreshItems();
-            }
-            else {
-                Alert alert = new Alert(Alert.AlertType.INFORMATION, "Error: Cannot Assign " + item.getName()
-                        + " to a Owner. " + item.getName() + "'s condition is < 10");
+        dialog.showAndWait().ifPresent(items -> {
+            List<Item> rejected = controller.assignItemsToOwner(owner, items);
+            ownerTable.getSelectionModel().select(owner);
+            if (!rejected.isEmpty()) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, "Error: Cannot Assign " + rejected
+                        + " to a Owner. Their condition is < 10");
                 alert.setHeaderText("Poor Condition");
                 alert.showAndWait();
-                return;
             }
         });
     }
 
+    private void loadUnassignedPage(ListView<Item> list, Button moreButton) {
+        ObservableList<Item> shown = list.getItems();
+        int afterId = shown.isEmpty() ? Integer.MIN_VALUE : shown.get(shown.size() - 1).getId();
+        shown.addAll(controller.getUnassignedItems(afterId, ASSIGN_PAGE_SIZE));
+        moreButton.setDisable(shown.size() >= controller.countUnassignedItems());
+    }
+
     private void showViewOwnerDialog(Owner owner) {
         if (owner == null) return;
 
@@ -197,5 +267,64 @@ public class OwnerView extends VBox{
         dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
         dialog.showAndWait();
     }
+
+    // apply store deltas in place instead of reloading the whole table
+    private void applyOwnerChanges(List<ChangeEvent<Owner>> changes) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> applyOwnerChanges(changes));
+            return;
+        }
+        long start = APPLY_CHANGES_TIMER.start();
+        try {
+            List<Owner> added = new ArrayList<>();
+            List<Owner> removed = new ArrayList<>();
+            boolean updated = false;
+            for (ChangeEvent<Owner> change : changes) {
+                switch (change.getType()) {
+                    case ADDED -> added.add(change.getEntity());
+                    case UPDATED -> {
+                        OwnerRow row = rows.get(change.getEntity());
+                        if (row != null) row.update(change.getEntity()); // bound cells pick this up
+                        updated = true;
+                    }
+                    case REMOVED -> removed.add(change.getEntity());
+                }
+            }
+            if (updated && sortKey != SortKey.ID) {
+                ownerData.reordered(); // a rename may have moved rows
+            }
+            if (!added.isEmpty()) {
+                ownerData.added(added);
+            }
+            if (!removed.isEmpty()) {
+                ownerData.removed(removed);
+            }
+        } finally {
+            APPLY_CHANGES_TIMER.stop(start);
+        }
+    }
+
+    private OwnerRow rowFor(Owner owner) {
+        return rows.computeIfAbsent(owner, OwnerRow::new);
+    }
+
+    // same idea as ItemView's rows: one set of properties per owner, updated in place
+    private static final class OwnerRow {
+        private final ReadOnlyIntegerWrapper id = new ReadOnlyIntegerWrapper();
+        private final ReadOnlyStringWrapper name = new ReadOnlyStringWrapper();
+
+        private OwnerRow(Owner owner) {
+            update(owner);
+        }
+
+        private void update(Owner owner) {
+            id.set(owner.getId());
+            name.set(owner.getName());
+        }
+    }
+
+    public void dispose() {
+        ChangeEvents.getInstance().removeOwnerListener(this.ownerListener);
+    }
 }
 
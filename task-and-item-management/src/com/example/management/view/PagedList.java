@@ -0,0 +1,122 @@
+package com.example.management.view;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only list that only holds the pages the table has asked for; everything else stays in the store.
+public class PagedList<T> extends ObservableListBase<T> {
+    private static final int PAGE_SIZE = 256;
+    private static final int CACHED_PAGES = 8; // visible window plus a prefetch margin either side
+
+    public interface Provider<T> {
+        int count();
+        List<T> fetch(int offset, int limit);
+        int positionOf(T entity); // row of the entity in the provider's current order
+    }
+
+    private final Provider<T> provider;
+    private final Map<Integer, List<T>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private int size;
+
+    public PagedList(Provider<T> provider) {
+        this.provider = provider;
+        this.size = provider.count();
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int page = index / PAGE_SIZE;
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            rows = provider.fetch(page * PAGE_SIZE, PAGE_SIZE);
+            pages.put(page, rows);
+        }
+        return rows.get(index % PAGE_SIZE);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // the default walks every row; ask the provider instead (selection models call this a lot)
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(Object o) {
+        int position;
+        try {
+            position = provider.positionOf((T) o);
+        } catch (ClassCastException | NullPointerException e) {
+            return -1;
+        }
+        return position >= 0 && position < size && get(position) == o ? position : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    // Call after the provider already contains the entities. Positions are taken from the new state, which
+    // matches the one-by-one positions as long as the changes are applied in ascending order.
+    public void added(List<T> entities) {
+        long[] byPosition = sortedByPosition(entities);
+        pages.clear();
+        size = provider.count();
+        beginChange();
+        for (long entry : byPosition) {
+            int position = (int) (entry >>> 32);
+            nextAdd(position, position + 1);
+        }
+        endChange();
+    }
+
+    // Call after the provider already dropped the entities; same ordering argument as added().
+    public void removed(List<T> entities) {
+        long[] byPosition = sortedByPosition(entities);
+        pages.clear();
+        size = provider.count();
+        beginChange();
+        for (long entry : byPosition) {
+            nextRemove((int) (entry >>> 32), entities.get((int) entry));
+        }
+        endChange();
+    }
+
+    // Call after updates that may have moved entities within the provider's order (a sort key changed); the
+    // row count stays the same. Only rows of cached pages can be on screen, so only those are reported.
+    public void reordered() {
+        int[] cached = pages.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        pages.clear();
+        if (cached.length == 0) return;
+        beginChange();
+        for (int page : cached) {
+            for (int i = page * PAGE_SIZE; i < Math.min(size, (page + 1) * PAGE_SIZE); i++) {
+                nextUpdate(i);
+            }
+        }
+        endChange();
+    }
+
+    // position in the high half, index into entities in the low half
+    private long[] sortedByPosition(List<T> entities) {
+        long[] byPosition = new long[entities.size()];
+        for (int i = 0; i < byPosition.length; i++) {
+            byPosition[i] = ((long) provider.positionOf(entities.get(i)) << 32) | i;
+        }
+        Arrays.sort(byPosition);
+        return byPosition;
+    }
+}
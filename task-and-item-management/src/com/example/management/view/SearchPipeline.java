@@ -0,0 +1,86 @@
+package com.example.management.view;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Debounces keystrokes, runs the search off the FX thread and only publishes the newest result.
+public class SearchPipeline<R> {
+    public interface Stats {
+        void onQueryCompleted(String query, long latencyNanos, long droppedQueries);
+    }
+
+    private final Function<String, R> search;
+    private final Consumer<R> publish;
+    private final PauseTransition debounce;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private boolean pending;
+    private Stats stats = (query, latencyNanos, droppedQueries) -> { };
+
+    public SearchPipeline(Duration delay, Function<String, R> search, Consumer<R> publish) {
+        this.search = search;
+        this.publish = publish;
+        this.debounce = new PauseTransition(delay);
+    }
+
+    public void setStats(Stats stats) {
+        this.stats = stats;
+    }
+
+    public long getDroppedQueries() {
+        return dropped.get();
+    }
+
+    // call on the FX thread, once per keystroke
+    public void submit(String query) {
+        if (pending) {
+            dropped.incrementAndGet(); // the previous keystroke never ran
+        }
+        pending = true;
+        debounce.setOnFinished(e -> run(query));
+        debounce.playFromStart();
+    }
+
+    // drop whatever is queued or running, e.g. when the search box is cleared
+    public void cancel() {
+        debounce.stop();
+        pending = false;
+        generation.incrementAndGet();
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    // a query that has been superseded is counted as dropped at whichever step notices it first
+    private void run(String query) {
+        pending = false;
+        long gen = generation.incrementAndGet();
+        executor.execute(() -> {
+            if (isStale(gen)) return;
+            long start = System.nanoTime();
+            R result = search.apply(query);
+            if (isStale(gen)) return;
+            Platform.runLater(() -> {
+                if (isStale(gen)) return;
+                publish.accept(result);
+                stats.onQueryCompleted(query, System.nanoTime() - start, dropped.get());
+            });
+        });
+    }
+
+    private boolean isStale(long gen) {
+        if (gen == generation.get()) return false;
+        dropped.incrementAndGet();
+        return true;
+    }
+}
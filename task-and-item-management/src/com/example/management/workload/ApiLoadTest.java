@@ -0,0 +1,187 @@
+package com.example.management.workload;
+
+import com.example.management.api.ApiServer;
+import com.example.management.controller.ItemController;
+import com.example.management.controller.OwnerController;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load test for the headless API: starts an ApiServer on a free loopback port against a seeded store in a temp
+// directory, then sends requests from many client threads, each waiting for its response before sending the
+// next. Prints requests per second and latency percentiles per route, and counts anything that isn't a 2xx.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.ApiLoadTest owners=100 items=10000
+//        threads=16 requests=100000 mix=get:40,page:10,search:20,repair:20,assign:10 seed=1
+public class ApiLoadTest {
+    enum Route { GET, PAGE, SEARCH, REPAIR, ASSIGN }
+
+    private static final String TOKEN = "load-test";
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong errors = new AtomicLong();
+    private String base;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        // never touch the working directory's data
+        String dir = Files.createTempDirectory("apiload").toString();
+        System.setProperty("management.data.dir", dir);
+        System.setProperty("management.descriptions.dir", dir);
+        new ApiLoadTest().run(options);
+    }
+
+    private void run(Map<String, String> options) throws Exception {
+        int ownerCount = Integer.parseInt(options.getOrDefault("owners", "100"));
+        int itemCount = Integer.parseInt(options.getOrDefault("items", "10000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        Map<Route, Integer> mix = mix(options.getOrDefault("mix", "get:40,page:10,search:20,repair:20,assign:10"));
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("The request mix needs at least one positive weight");
+        }
+
+        OwnerController owners = new OwnerController();
+        ItemController items = new ItemController();
+        int[] ownerIds = new int[ownerCount];
+        for (int i = 0; i < ownerCount; i++) {
+            Owner owner = owners.addOwner("owner-" + i);
+            ownerIds[i] = owner.getId();
+        }
+        int[] itemIds = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            Item item = items.addItem("item-" + i, "generated item " + i);
+            itemIds[i] = item.getId();
+        }
+
+        ApiServer server = new ApiServer(0, TOKEN);
+        server.start();
+        base = "http://127.0.0.1:" + server.getPort();
+        try {
+            // a short warmup so the first measured requests don't pay for class loading and connection setup
+            drive(new SplittableRandom(seed - 1), threads, Math.min(requests, 5_000), mix, total, ownerIds, itemIds);
+            errors.set(0);
+            long begin = System.nanoTime();
+            Map<Route, List<Long>> latencies = drive(new SplittableRandom(seed), threads, requests, mix, total, ownerIds, itemIds);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("Sent %d requests on %d threads in %.2f s (%.0f req/s), %d errors%n", requests, threads,
+                    seconds, requests / seconds, errors.get());
+            report(latencies);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private Map<Route, List<Long>> drive(SplittableRandom random, int threads, int requests, Map<Route, Integer> mix, int total,
+                                         int[] ownerIds, int[] itemIds) throws Exception {
+        Map<Route, List<Long>> latencies = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<Map<Route, List<Long>>>> running = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom own = random.split();
+                int share = requests / threads + (t < requests % threads ? 1 : 0);
+                running.add(executor.submit(() -> {
+                    Map<Route, List<Long>> measured = new LinkedHashMap<>();
+                    for (int n = 0; n < share; n++) {
+                        Route route = pick(own, mix, total);
+                        HttpRequest request = request(own, route, ownerIds, itemIds);
+                        long start = System.nanoTime();
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        long nanos = System.nanoTime() - start;
+                        if (response.statusCode() / 100 != 2) errors.incrementAndGet();
+                        measured.computeIfAbsent(route, r -> new ArrayList<>()).add(nanos);
+                    }
+                    return measured;
+                }));
+            }
+            for (Future<Map<Route, List<Long>>> future : running) {
+                future.get().forEach((route, list) -> latencies.computeIfAbsent(route, r -> new ArrayList<>()).addAll(list));
+            }
+        }
+        return latencies;
+    }
+
+    private HttpRequest request(SplittableRandom random, Route route, int[] ownerIds, int[] itemIds) {
+        int itemId = itemIds.length > 0 ? itemIds[random.nextInt(itemIds.length)] : 1;
+        return switch (route) {
+            case GET -> get("/items/" + itemId);
+            case PAGE -> get("/items?offset=" + random.nextInt(Math.max(1, itemIds.length)) + "&limit=50");
+            case SEARCH -> get("/items/search?q=item-" + random.nextInt(1000) + "&limit=50");
+            case REPAIR -> post("/items/" + itemId + "/repair", "{\"amount\":" + (1 + random.nextInt(20)) + "}");
+            case ASSIGN -> post("/owners/" + (ownerIds.length > 0 ? ownerIds[random.nextInt(ownerIds.length)] : 1) + "/assign",
+                    "{\"ids\":[" + itemId + "]}");
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).header("Authorization", "Bearer " + TOKEN).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(base + path)).header("Authorization", "Bearer " + TOKEN)
+                .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private static Route pick(SplittableRandom random, Map<Route, Integer> mix, int total) {
+        int pick = random.nextInt(total);
+        for (Map.Entry<Route, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0) return entry.getKey();
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private static void report(Map<Route, List<Long>> latencies) {
+        System.out.printf("%-9s %9s %10s %10s %10s %10s %10s%n", "route", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        List<Long> all = new ArrayList<>();
+        for (Map.Entry<Route, List<Long>> entry : latencies.entrySet()) {
+            print(entry.getKey().toString(), entry.getValue());
+            all.addAll(entry.getValue());
+        }
+        print("all", all);
+    }
+
+    private static void print(String label, List<Long> latencies) {
+        if (latencies.isEmpty()) return;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("%-9s %9d %10.3f %10.3f %10.3f %10.3f %10.3f%n", label, sorted.length, percentile(sorted, 0.5),
+                percentile(sorted, 0.9), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static Map<Route, Integer> mix(String spec) {
+        Map<Route, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Route.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.management.workload;
+
+import com.example.management.controller.ItemController;
+import com.example.management.controller.OwnerController;
+import com.example.management.data.DataStore;
+import com.example.management.data.IdOrderIndex;
+import com.example.management.data.SortKeyIndex;
+import com.example.management.data.TransactionLedger;
+import com.example.management.data.UnassignedItemIndex;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Hammers the controllers from several threads with the operations that race each other (assigning,
+// unassigning, repairing, renaming, deleting and re-adding the same items), then checks that the owner
+// links, the indexes and the ledger still agree with the store. Runs one round per thread count and prints
+// throughput; exits with status 1 if any round breaks an invariant.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.ConcurrencyStress items=2000 owners=50
+//        ops=200000 threads=1,2,4,8 seed=1
+public class ConcurrencyStress {
+    private final ItemController items = new ItemController();
+    private final OwnerController owners = new OwnerController();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        // never touch the working directory's data
+        String dir = Files.createTempDirectory("stress").toString();
+        System.setProperty("management.data.dir", dir);
+        System.setProperty("management.descriptions.dir", dir);
+        System.exit(new ConcurrencyStress().run(options) ? 0 : 1);
+    }
+
+    private boolean run(Map<String, String> options) throws Exception {
+        int itemCount = Integer.parseInt(options.getOrDefault("items", "2000"));
+        int ownerCount = Integer.parseInt(options.getOrDefault("owners", "50"));
+        int ops = Integer.parseInt(options.getOrDefault("ops", "200000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+
+        // every index the app keeps, built up front so each one has to follow the whole run
+        IdOrderIndex.items();
+        IdOrderIndex.owners();
+        SortKeyIndex.itemsByName();
+        SortKeyIndex.itemsByCondition();
+        SortKeyIndex.ownersByName();
+        UnassignedItemIndex.getInstance();
+        TransactionLedger.getInstance();
+
+        List<Owner> ownerPool = new ArrayList<>(ownerCount);
+        for (int i = 0; i < ownerCount; i++) {
+            ownerPool.add(owners.addOwner("owner-" + i));
+        }
+        // a slot holds whatever item currently lives there; deleting one puts a new item in its slot
+        AtomicReferenceArray<Item> slots = new AtomicReferenceArray<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            slots.set(i, items.addItem("item-" + i, "stress item"));
+        }
+
+        boolean ok = true;
+        for (String threadSpec : options.getOrDefault("threads", "1,2,4,8").split(",")) {
+            int threads = Integer.parseInt(threadSpec.trim());
+            long ledgerBefore = TransactionLedger.getInstance().size();
+            long begin = System.nanoTime();
+            long recorded = 0;
+            try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+                List<Future<Long>> running = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    SplittableRandom random = new SplittableRandom(seed * 31 + t);
+                    int share = ops / threads;
+                    running.add(executor.submit(() -> hammer(random, share, slots, ownerPool)));
+                }
+                for (Future<Long> future : running) {
+                    recorded += future.get();
+                }
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            List<String> broken = check(slots, ownerPool, ledgerBefore + recorded);
+            System.out.printf("threads=%-3d %10.0f ops/s  %s%n", threads, ops / seconds,
+                    broken.isEmpty() ? "invariants hold" : "BROKEN " + broken);
+            ok &= broken.isEmpty();
+        }
+        return ok;
+    }
+
+    // returns how many transactions it recorded
+    private long hammer(SplittableRandom random, int count, AtomicReferenceArray<Item> slots, List<Owner> ownerPool) {
+        long recorded = 0;
+        for (int n = 0; n < count; n++) {
+            int slot = random.nextInt(slots.length());
+            Item item = slots.get(slot);
+            Owner owner = ownerPool.get(random.nextInt(ownerPool.size()));
+            switch (random.nextInt(10)) {
+                case 0, 1, 2 -> {
+                    try {
+                        if (owners.assignItemToOwner(owner, item)) recorded++;
+                    } catch (IllegalArgumentException e) {
+                        // deleted by another thread since we read the slot
+                    }
+                }
+                case 3, 4 -> {
+                    Owner current = item.getOwner();
+                    if (current != null && items.unassignItemFromOwner(current, item)) recorded++;
+                }
+                case 5, 6 -> {
+                    items.repairItem(item, 1 + random.nextInt(20));
+                    recorded++;
+                }
+                case 7, 8 -> {
+                    try {
+                        items.updateItem(item.getId(), "item-" + random.nextInt(100_000), "renamed");
+                    } catch (NoSuchElementException e) {
+                        // deleted by another thread since we read the slot
+                    }
+                }
+                case 9 -> {
+                    items.deleteItem(item.getId());
+                    slots.compareAndSet(slot, item, items.addItem("item-" + random.nextInt(100_000), "re-added"));
+                }
+            }
+        }
+        return recorded;
+    }
+
+    private List<String> check(AtomicReferenceArray<Item> slots, List<Owner> ownerPool, long expectedLedger) {
+        List<String> broken = new ArrayList<>();
+        DataStore store = DataStore.getInstance();
+        int storeItems = store.findAllItems().size();
+        int storeOwners = store.findAllOwners().size();
+        Set<Item> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Owner owner : ownerPool) {
+            for (Item item : owner.getItems()) {
+                if (item.getOwner() != owner) broken.add("item " + item.getId() + " listed by an owner it doesn't point at");
+                if (!owned.add(item)) broken.add("item " + item.getId() + " held by two owners");
+                if (store.findItemById(item.getId()) != item) broken.add("deleted item " + item.getId() + " still owned");
+            }
+        }
+        int unassigned = 0;
+        for (Item item : store.findAllItems()) {
+            if (item.getOwner() == null) unassigned++;
+            else if (!owned.contains(item)) broken.add("item " + item.getId() + " points at an owner that doesn't list it");
+        }
+        for (int i = 0; i < slots.length(); i++) {
+            if (store.findItemById(slots.get(i).getId()) != slots.get(i)) broken.add("slot " + i + " lost its item");
+        }
+        expect(broken, "id index items", IdOrderIndex.items().size(), storeItems);
+        expect(broken, "id index owners", IdOrderIndex.owners().size(), storeOwners);
+        expect(broken, "name index", SortKeyIndex.itemsByName().size(), storeItems);
+        expect(broken, "condition index", SortKeyIndex.itemsByCondition().size(), storeItems);
+        expect(broken, "owner name index", SortKeyIndex.ownersByName().size(), storeOwners);
+        expect(broken, "unassigned index", UnassignedItemIndex.getInstance().size(), unassigned);
+        expect(broken, "ledger", TransactionLedger.getInstance().size(), expectedLedger);
+        return broken;
+    }
+
+    private static void expect(List<String> broken, String what, long actual, long expected) {
+        if (actual != expected) broken.add(what + " has " + actual + ", expected " + expected);
+    }
+}
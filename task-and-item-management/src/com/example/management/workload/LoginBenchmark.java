@@ -0,0 +1,110 @@
+package com.example.management.workload;
+
+import com.example.management.data.UserDirectory;
+import com.example.management.model.Role;
+import com.example.management.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Login latency and throughput through UserDirectory.authenticate at different PBKDF2 costs, with the directory
+// holding thousands of accounts, to pick management.password.iterations. For each cost a few accounts are made
+// with it and logged into from 1..n threads at once: correct password, wrong password, and (once, at the
+// lowest cost) an unknown username, which hashes against the directory's stand-in account. The filler accounts
+// are written straight to the users file at a trivial cost, since only the directory's size matters for them.
+// management.password.iterations is set to the lowest cost so no measured account gets upgraded on login.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.LoginBenchmark accounts=5000
+//        costs=10000,50000,100000,210000 logins=20 threads=1,4
+public class LoginBenchmark {
+    private static final int ACCOUNTS_PER_COST = 8;
+    private static final String PASSWORD = "correct horse battery staple";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "5000"));
+        int[] costs = Arrays.stream(options.getOrDefault("costs", "10000,50000,100000,210000").split(","))
+                .mapToInt(cost -> Integer.parseInt(cost.trim())).sorted().toArray();
+        int logins = Integer.parseInt(options.getOrDefault("logins", "20"));
+        int[] threads = Arrays.stream(options.getOrDefault("threads", "1,4").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim())).toArray();
+        // before User is loaded, which reads it once; never touch the working directory's data
+        System.setProperty("management.password.iterations", Integer.toString(costs[0]));
+        Path dir = Files.createTempDirectory("login");
+        System.setProperty("management.data.dir", dir.toString());
+
+        List<User> filler = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            filler.add(User.hashed("user-" + i, PASSWORD, Role.USER, 1));
+        }
+        new ObjectMapper().writeValue(dir.resolve("users.json").toFile(), filler);
+        UserDirectory directory = UserDirectory.getInstance();
+
+        System.out.printf("%d accounts, %d logins per thread%n", directory.size(), logins);
+        System.out.printf("%-10s %-8s %7s %10s %10s %10s %12s%n", "cost", "login", "threads", "p50 ms", "p99 ms", "max ms", "logins/s");
+        for (int cost : costs) {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < ACCOUNTS_PER_COST; i++) {
+                String name = "cost-" + cost + "-" + i;
+                directory.addUser(name, PASSWORD, Role.USER, cost);
+                names.add(name);
+            }
+            directory.authenticate(names.get(0), PASSWORD); // warmup
+            for (int count : threads) {
+                run(cost + "", "ok", count, logins, names, PASSWORD, true);
+                run(cost + "", "wrong", count, logins, names, PASSWORD + "!", false);
+            }
+        }
+        for (int count : threads) {
+            run(costs[0] + "", "unknown", count, logins, List.of("nobody"), PASSWORD, false);
+        }
+    }
+
+    private static void run(String cost, String label, int threadCount, int logins, List<String> names, String password,
+                            boolean expected) throws Exception {
+        UserDirectory directory = UserDirectory.getInstance();
+        List<Future<long[]>> running = new ArrayList<>();
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threadCount)) {
+            for (int t = 0; t < threadCount; t++) {
+                String name = names.get(t % names.size());
+                running.add(executor.submit(() -> {
+                    long[] nanos = new long[logins];
+                    for (int i = 0; i < logins; i++) {
+                        long start = System.nanoTime();
+                        boolean ok = directory.authenticate(name, password) != null;
+                        nanos[i] = System.nanoTime() - start;
+                        if (ok != expected) throw new IllegalStateException("Unexpected login result for " + name);
+                    }
+                    return nanos;
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long[] all = new long[threadCount * logins];
+        for (int t = 0; t < running.size(); t++) {
+            System.arraycopy(running.get(t).get(), 0, all, t * logins, logins);
+        }
+        Arrays.sort(all);
+        System.out.printf("%-10s %-8s %7d %10.1f %10.1f %10.1f %12.1f%n", cost, label, threadCount, percentile(all, 0.5),
+                percentile(all, 0.99), all[all.length - 1] / 1e6, all.length / seconds);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.management.workload;
+
+import com.example.management.data.DataStore;
+import com.example.management.model.Item;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Time and allocation of DataStore.findItemById as the store grows: the store is filled up to each size in
+// turn and then looked up at random ids it holds, plus misses. The cost should stay flat from the smallest size
+// to the largest, with nothing allocated; what growth there is comes from cache misses once the table and the
+// items no longer fit in the CPU caches. Each size runs a few rounds; the first are warmup.
+// 10M items needs a heap of about 2 GB (-Xmx2g).
+//
+//   java -cp <classes>:lib/* com.example.management.workload.LookupBenchmark sizes=1000,10000,100000,1000000
+//        lookups=10000000 rounds=3
+public class LookupBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink; // keeps results alive so the JIT can't drop the work
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String[] sizes = options.getOrDefault("sizes", "1000,10000,100000,1000000").split(",");
+        int lookups = Integer.parseInt(options.getOrDefault("lookups", "10000000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "3"));
+
+        DataStore store = DataStore.getInstance();
+        int firstId = store.getNextItemId();
+        int held = 0;
+        SplittableRandom random = new SplittableRandom(1);
+        for (String spec : sizes) {
+            int size = Integer.parseInt(spec.trim());
+            for (; held < size; held++) {
+                store.addItem(new Item("item", "")); // one shared name, so only the store grows
+            }
+            int[] hits = new int[lookups];
+            int[] misses = new int[lookups];
+            for (int i = 0; i < lookups; i++) {
+                hits[i] = firstId + random.nextInt(size);
+                misses[i] = -1 - random.nextInt(size);
+            }
+            for (int round = 1; round <= rounds; round++) {
+                String label = round < rounds ? "warmup " + round : "result";
+                measure(label, size, "hit", lookups, () -> {
+                    long sum = 0;
+                    for (int id : hits) {
+                        sum += store.findItemById(id).getId();
+                    }
+                    sink = sum;
+                });
+                measure(label, size, "miss", lookups, () -> {
+                    int found = 0;
+                    for (int id : misses) {
+                        if (store.findItemById(id) != null) found++;
+                    }
+                    sink = found;
+                });
+            }
+        }
+    }
+
+    private static void measure(String label, int size, String name, int count, Runnable body) {
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        body.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-9s %10d items %-5s %8.1f ns/op %8.2f B/op%n", label, size, name, (double) nanos / count,
+                (double) bytes / count);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.management.workload;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Bulk reassignment between two heavy owners: every item of one is moved to the other in random order, then
+// back. "list" is the ArrayList-backed Owner the app used to have (identity contains/remove are linear
+// scans), "owner" is the current one. Prints time and allocation per assignment; each round runs both, the
+// first rounds are warmup. The list case is quadratic, so keep items moderate for it.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.OwnerReassignBenchmark items=10000,50000 rounds=3
+public class OwnerReassignBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink; // keeps results alive so the JIT can't drop the work
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String[] sizes = options.getOrDefault("items", "10000,50000").split(",");
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "3"));
+        // items keep their descriptions in DescriptionStore; never touch the working directory's data
+        System.setProperty("management.descriptions.dir", Files.createTempDirectory("reassign").toString());
+
+        for (String spec : sizes) {
+            int count = Integer.parseInt(spec.trim());
+            Item[] items = new Item[count];
+            for (int i = 0; i < count; i++) {
+                items[i] = new Item("item", "");
+                items[i].setId(i + 1);
+            }
+            SplittableRandom random = new SplittableRandom(1);
+            Item[] order = items.clone();
+            for (int i = order.length - 1; i > 0; i--) { // Fisher-Yates
+                int j = random.nextInt(i + 1);
+                Item swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            for (int round = 1; round <= rounds; round++) {
+                String label = round < rounds ? "warmup " + round : "result";
+                measure(label, "list", count, () -> {
+                    ListOwners owners = new ListOwners();
+                    for (Item item : items) owners.assign(item, 0);
+                    for (Item item : order) owners.assign(item, 1);
+                    for (Item item : order) owners.assign(item, 0);
+                    sink = owners;
+                });
+                measure(label, "owner", count, () -> {
+                    Owner from = new Owner("from");
+                    Owner to = new Owner("to");
+                    for (Item item : items) from.addItem(item);
+                    for (Item item : order) to.addItem(item);
+                    for (Item item : order) from.addItem(item);
+                    sink = from.getItems().get(0);
+                    from.removeAllItems();
+                });
+            }
+        }
+    }
+
+    // the old Owner.items: an ArrayList with identity contains() and remove(), owner tracked on the side
+    private static final class ListOwners {
+        private final List<List<Item>> items = List.of(new ArrayList<>(), new ArrayList<>());
+        private final Map<Item, Integer> owner = new IdentityHashMap<>();
+
+        void assign(Item item, int to) {
+            List<Item> target = items.get(to);
+            if (target.contains(item)) return;
+            Integer from = owner.put(item, to);
+            if (from != null) items.get(from).remove(item);
+            target.add(item);
+        }
+    }
+
+    // per assignment: each item is assigned three times, the first fill and two moves
+    private static void measure(String label, String name, int count, Runnable body) {
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        body.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-9s %8d items %-6s %10.1f ns/op %8.1f B/op %10.1f ms%n", label, count, name,
+                (double) nanos / (3L * count), (double) bytes / (3L * count), nanos / 1e6);
+    }
+}
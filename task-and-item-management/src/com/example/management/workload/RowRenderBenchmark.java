@@ -0,0 +1,133 @@
+package com.example.management.workload;
+
+import com.example.management.controller.ItemController;
+import com.example.management.controller.OwnerController;
+import com.example.management.data.DataStore;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Role;
+import com.example.management.model.User;
+import com.example.management.view.ItemView;
+import com.example.management.view.OwnerView;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Scene;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.Region;
+import javafx.stage.Stage;
+import javafx.util.Callback;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Callable;
+
+// Garbage made while scrolling the Items or Owners table: the view is built on a store of that many entities,
+// shown in a window, and scrolled through a page at a time on the FX thread, each step laid out the way a
+// pulse would. Prints bytes allocated on the FX thread per step and per visible row, for the view as shipped
+// ("cached": one row of properties per entity, action cells built once and only toggled) and with the cell
+// value factories swapped for a new wrapper per call, the way createTable used to ("wrappers"). Each round
+// runs both over the whole table; the first rounds are warmup.
+// Needs a display and JavaFX on the module path, like the app itself.
+//
+//   java -p <javafx lib> --add-modules javafx.controls -cp <classes>:lib/*
+//        com.example.management.workload.RowRenderBenchmark view=items entities=100000 rounds=3
+public class RowRenderBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String which = options.getOrDefault("view", "items");
+        int entities = Integer.parseInt(options.getOrDefault("entities", "100000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "3"));
+        // never touch the working directory's data
+        String dir = Files.createTempDirectory("rowrender").toString();
+        System.setProperty("management.data.dir", dir);
+        System.setProperty("management.descriptions.dir", dir);
+
+        // the views show the admin's buttons, the widest rows
+        DataStore.getInstance().setCurrentUser(new User("admin", null, Role.ADMIN));
+        OwnerController owners = new OwnerController();
+        ItemController items = new ItemController();
+        int ownerCount = which.equals("owners") ? entities : Math.max(1, entities / 100);
+        Owner[] created = new Owner[ownerCount];
+        for (int i = 0; i < ownerCount; i++) {
+            created[i] = owners.addOwner("owner-" + i);
+        }
+        if (which.equals("items")) {
+            for (int i = 0; i < entities; i++) {
+                Item item = items.addItem("item-" + i, "generated item " + i);
+                if (i % 2 == 0) owners.assignItemToOwner(created[i % ownerCount], item); // both kinds of action cell
+            }
+        }
+
+        Platform.startup(() -> { });
+        TableView<?> table = onFx(() -> {
+            Region view = which.equals("owners") ? new OwnerView() : new ItemView();
+            Stage stage = new Stage();
+            stage.setScene(new Scene(view, 1200, 800));
+            stage.show();
+            return (TableView<?>) view.lookup(".table-view");
+        });
+        for (int round = 1; round <= rounds; round++) {
+            String label = round < rounds ? "warmup " + round : "result";
+            onFx(() -> scroll(label, "cached", table, entities));
+        }
+        onFx(() -> {
+            table.getColumns().forEach(RowRenderBenchmark::wrapEveryCall);
+            return null;
+        });
+        for (int round = 1; round <= rounds; round++) {
+            String label = round < rounds ? "warmup " + round : "result";
+            onFx(() -> scroll(label, "wrappers", table, entities));
+        }
+        Platform.exit();
+    }
+
+    // on the FX thread: one page per step, from the top to the bottom
+    private static Void scroll(String label, String name, TableView<?> table, int entities) {
+        int page = Math.max(1, (int) (table.getHeight() / 24) - 2); // about a screenful at the default row height
+        int steps = 0;
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int top = 0; top < entities; top += page) {
+            table.scrollTo(top);
+            table.applyCss();
+            table.layout();
+            steps++;
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-9s %-9s %6d steps %10.1f B/step %8.1f B/row %8.3f ms/step%n", label, name, steps,
+                (double) bytes / steps, (double) bytes / steps / page, nanos / 1e6 / steps);
+        return null;
+    }
+
+    private static <S, T> void wrapEveryCall(TableColumn<S, T> column) {
+        Callback<TableColumn.CellDataFeatures<S, T>, ObservableValue<T>> cached = column.getCellValueFactory();
+        if (cached == null) return;
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cached.call(cell).getValue()));
+    }
+
+    private static <T> T onFx(Callable<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.management.workload;
+
+import com.example.management.data.SnapshotShards;
+import com.example.management.model.Transaction;
+import com.example.management.model.TransactionKind;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+// Saving and loading the snapshot shards with the streaming parser and generator (SnapshotShards, as the
+// autosave and startup do) against binding each shard's record list with databind, as they used to. Every
+// shard is written and read by both; prints time and allocation per transaction for each, and checks first
+// that the streaming files are byte for byte what databind writes, so either reads the other's shards.
+// Each round runs both, the first rounds are warmup.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.SnapshotJsonBenchmark items=100000 history=20 rounds=3
+public class SnapshotJsonBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final TypeReference<List<SnapshotShards.ItemRecord>> ITEM_RECORDS = new TypeReference<>() { };
+
+    private static volatile Object sink; // keeps results alive so the JIT can't drop the work
+
+    private interface Body {
+        void run() throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int itemCount = Integer.parseInt(options.getOrDefault("items", "100000"));
+        int historySize = Integer.parseInt(options.getOrDefault("history", "20"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "3"));
+
+        Map<Integer, List<SnapshotShards.ItemRecord>> byShard = new TreeMap<>();
+        SplittableRandom random = new SplittableRandom(1);
+        long epochSecond = 1_700_000_000L;
+        for (int id = 1; id <= itemCount; id++) {
+            List<Transaction> history = new ArrayList<>(historySize);
+            int ownerId = 1 + random.nextInt(100);
+            for (int i = 0; i < historySize; i++) {
+                epochSecond += random.nextInt(60);
+                history.add(random.nextBoolean()
+                        ? new Transaction(TransactionKind.REPAIR, 1 + random.nextInt(20), false, epochSecond, id, Transaction.NONE, Transaction.NONE)
+                        : new Transaction(TransactionKind.ASSIGN, 0, false, epochSecond, id, ownerId, Transaction.NONE));
+            }
+            byShard.computeIfAbsent(SnapshotShards.shardOf(id), shard -> new ArrayList<>()).add(new SnapshotShards.ItemRecord(id,
+                    "item-" + id, "generated item " + id, ownerId, 50 + random.nextInt(50), 0, history));
+        }
+        long transactions = (long) itemCount * Math.max(1, historySize);
+
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Path streamingDir = Files.createTempDirectory("shards-streaming");
+        Path databindDir = Files.createTempDirectory("shards-databind");
+        SnapshotShards shards = new SnapshotShards(streamingDir);
+        Files.createDirectories(databindDir.resolve("items"));
+
+        for (Map.Entry<Integer, List<SnapshotShards.ItemRecord>> entry : byShard.entrySet()) {
+            shards.writeItems(entry.getKey(), entry.getValue());
+            Path file = databindDir.resolve("items").resolve(entry.getKey() + ".json");
+            mapper.writeValue(file.toFile(), entry.getValue());
+            if (!Arrays.equals(Files.readAllBytes(file), Files.readAllBytes(streamingDir.resolve("items").resolve(entry.getKey() + ".json")))) {
+                throw new IllegalStateException("Shard " + entry.getKey() + " differs between databind and streaming");
+            }
+        }
+        // both ways round, through the manifest like startup
+        SnapshotShards.Manifest manifest = manifest(byShard);
+        shards.writeManifest(manifest);
+        SnapshotShards databindShards = new SnapshotShards(databindDir);
+        databindShards.writeManifest(manifest);
+        TreeMap<Integer, SnapshotShards.ItemRecord> check = new TreeMap<>();
+        databindShards.readRecords(manifest, check, new TreeMap<>());
+        if (check.size() != itemCount) throw new IllegalStateException("Read " + check.size() + " of " + itemCount + " items");
+
+        for (int round = 1; round <= rounds; round++) {
+            String label = round < rounds ? "warmup " + round : "result";
+            measure(label, "databind write", transactions, () -> {
+                for (Map.Entry<Integer, List<SnapshotShards.ItemRecord>> entry : byShard.entrySet()) {
+                    mapper.writeValue(databindDir.resolve("items").resolve(entry.getKey() + ".json").toFile(), entry.getValue());
+                }
+            });
+            measure(label, "streaming write", transactions, () -> {
+                for (Map.Entry<Integer, List<SnapshotShards.ItemRecord>> entry : byShard.entrySet()) {
+                    shards.writeItems(entry.getKey(), entry.getValue());
+                }
+            });
+            measure(label, "databind read", transactions, () -> {
+                TreeMap<Integer, SnapshotShards.ItemRecord> items = new TreeMap<>();
+                for (int shard : byShard.keySet()) {
+                    for (SnapshotShards.ItemRecord record : mapper.readValue(databindDir.resolve("items").resolve(shard + ".json").toFile(), ITEM_RECORDS)) {
+                        items.put(record.id(), record);
+                    }
+                }
+                sink = items;
+            });
+            measure(label, "streaming read", transactions, () -> {
+                TreeMap<Integer, SnapshotShards.ItemRecord> items = new TreeMap<>();
+                shards.readRecords(manifest, items, new TreeMap<>());
+                sink = items;
+            });
+        }
+    }
+
+    private static SnapshotShards.Manifest manifest(Map<Integer, List<SnapshotShards.ItemRecord>> byShard) {
+        Map<Integer, Long> itemShards = new HashMap<>();
+        byShard.keySet().forEach(shard -> itemShards.put(shard, 1L));
+        return new SnapshotShards.Manifest(1, 0, 0, itemShards, Map.of(), 0, 0);
+    }
+
+    private static void measure(String label, String name, long transactions, Body body) throws IOException {
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        body.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-9s %-16s %10.1f ms %8.1f ns/transaction %8.1f B/transaction%n", label, name, nanos / 1e6,
+                (double) nanos / transactions, (double) bytes / transactions);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.management.workload;
+
+import com.example.management.data.SnapshotShards;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+import com.example.management.model.TransactionKind;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+// Time and allocation of what Storage.start() reads at startup, for the same generated store saved two ways:
+// as JSON shards only, and as a compacted binary base plus the shards saved after it (dirty= is the share of
+// shards rewritten since the base). Each round loads both from disk into entities; the first rounds are warmup.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.StartupBenchmark owners=1000 items=100000
+//        history=3 dirty=0.05 rounds=5
+public class StartupBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink; // keeps results alive so the JIT can't drop the work
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int ownerCount = Integer.parseInt(options.getOrDefault("owners", "1000"));
+        int itemCount = Integer.parseInt(options.getOrDefault("items", "100000"));
+        int history = Integer.parseInt(options.getOrDefault("history", "3"));
+        double dirty = Double.parseDouble(options.getOrDefault("dirty", "0.05"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+
+        SplittableRandom random = new SplittableRandom(1);
+        List<SnapshotShards.OwnerRecord> owners = new ArrayList<>(ownerCount);
+        for (int i = 1; i <= ownerCount; i++) {
+            owners.add(new SnapshotShards.OwnerRecord(i, "owner-" + i));
+        }
+        List<SnapshotShards.ItemRecord> items = new ArrayList<>(itemCount);
+        long now = System.currentTimeMillis() / 1000;
+        for (int id = 1; id <= itemCount; id++) {
+            int ownerId = ownerCount > 0 && random.nextInt(3) != 0 ? 1 + random.nextInt(ownerCount) : Transaction.NONE;
+            List<Transaction> transactions = new ArrayList<>(history);
+            for (int k = 0; k < history; k++) {
+                transactions.add(new Transaction(TransactionKind.REPAIR, 1 + random.nextInt(20), false, now - k, id,
+                        Transaction.NONE, Transaction.NONE));
+            }
+            items.add(new SnapshotShards.ItemRecord(id, "item-" + id, "generated item " + id, ownerId,
+                    random.nextInt(101), 0, transactions));
+        }
+
+        Path root = Files.createTempDirectory("startup");
+        SnapshotShards json = new SnapshotShards(root.resolve("json"));
+        save(json, owners, items, 1, 0, shard -> true);
+        SnapshotShards binary = new SnapshotShards(root.resolve("binary"));
+        binary.writeBase(1, owners, items);
+        save(binary, owners, items, 2, 1, shard -> random.nextDouble() < dirty);
+        System.out.printf("%d owners, %d items, %d transactions: shards %.1f MB, base %.1f MB%n", ownerCount, itemCount,
+                (long) itemCount * history, size(root.resolve("json")) / 1e6, size(root.resolve("binary")) / 1e6);
+
+        for (int round = 1; round <= rounds; round++) {
+            String label = round < rounds ? "warmup " + round : "result";
+            measure(label, "json shards", json);
+            measure(label, "base + shards", binary);
+        }
+    }
+
+    // every shard at generation 1, then the ones picked rewritten at the given generation
+    private static void save(SnapshotShards shards, List<SnapshotShards.OwnerRecord> owners, List<SnapshotShards.ItemRecord> items,
+                             long generation, long baseGeneration, IntPredicate rewritten) throws IOException {
+        Map<Integer, List<SnapshotShards.ItemRecord>> itemShards = new TreeMap<>();
+        items.forEach(item -> itemShards.computeIfAbsent(SnapshotShards.shardOf(item.id()), shard -> new ArrayList<>()).add(item));
+        Map<Integer, List<SnapshotShards.OwnerRecord>> ownerShards = new TreeMap<>();
+        owners.forEach(owner -> ownerShards.computeIfAbsent(SnapshotShards.shardOf(owner.id()), shard -> new ArrayList<>()).add(owner));
+        Map<Integer, Long> itemGenerations = new HashMap<>();
+        for (Map.Entry<Integer, List<SnapshotShards.ItemRecord>> shard : itemShards.entrySet()) {
+            boolean write = rewritten.test(shard.getKey());
+            if (write) shards.writeItems(shard.getKey(), shard.getValue());
+            itemGenerations.put(shard.getKey(), write ? generation : 1L);
+        }
+        Map<Integer, Long> ownerGenerations = new HashMap<>();
+        for (Map.Entry<Integer, List<SnapshotShards.OwnerRecord>> shard : ownerShards.entrySet()) {
+            boolean write = rewritten.test(shard.getKey());
+            if (write) shards.writeOwners(shard.getKey(), shard.getValue());
+            ownerGenerations.put(shard.getKey(), write ? generation : 1L);
+        }
+        shards.writeManifest(new SnapshotShards.Manifest(generation, Long.MAX_VALUE, baseGeneration, itemGenerations, ownerGenerations, 0, 0));
+    }
+
+    private static void measure(String label, String name, SnapshotShards shards) throws IOException {
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        TreeMap<Integer, SnapshotShards.ItemRecord> itemRecords = new TreeMap<>();
+        TreeMap<Integer, SnapshotShards.OwnerRecord> ownerRecords = new TreeMap<>();
+        shards.readRecords(shards.readManifest(), itemRecords, ownerRecords);
+        List<Item> items = new ArrayList<>(itemRecords.size());
+        List<Owner> owners = SnapshotShards.toEntities(ownerRecords.values(), itemRecords.values(), items);
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        sink = owners;
+        System.out.printf("%-9s %-14s %8.1f ms %8.1f MB allocated  %d items%n", label, name, nanos / 1e6, bytes / 1e6, items.size());
+    }
+
+    private static long size(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.management.workload;
+
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Allocation and time per Transaction operation: creating one, and the getType() / getDateTimeString()
+// calls the history table makes per row. Allocation is read from the JVM's per-thread counter, so the
+// numbers are exact bytes, not GC estimates. Each round runs every case once; the first rounds are warmup.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.TransactionBenchmark count=1000000 rounds=5
+public class TransactionBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink; // keeps results alive so the JIT can't drop the work
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        int count = Integer.parseInt(options.getOrDefault("count", "1000000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+
+        Item item = new Item("Benchmark item", "");
+        item.setId(1);
+        Owner owner = new Owner("Benchmark owner");
+        owner.setId(1);
+        SplittableRandom random = new SplittableRandom(1);
+        Transaction[] transactions = new Transaction[count];
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < count; i++) {
+            transactions[i] = switch (random.nextInt(3)) {
+                case 0 -> Transaction.assign(item, owner, now - i);
+                case 1 -> Transaction.unassign(item, owner, now - i);
+                default -> Transaction.repair(item, random.nextInt(101), random.nextInt(4) == 0, now - i);
+            };
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            String label = round < rounds ? "warmup " + round : "result";
+            measure(label, "create", count, () -> {
+                Transaction last = null;
+                for (int i = 0; i < count; i++) {
+                    last = Transaction.repair(item, i % 101, false, now);
+                }
+                sink = last;
+            });
+            measure(label, "getType", count, () -> {
+                int length = 0;
+                for (Transaction transaction : transactions) {
+                    length += transaction.getType().length();
+                }
+                sink = length;
+            });
+            measure(label, "getDateTimeString", count, () -> {
+                int length = 0;
+                for (Transaction transaction : transactions) {
+                    length += transaction.getDateTimeString().length();
+                }
+                sink = length;
+            });
+        }
+    }
+
+    private static void measure(String label, String name, int count, Runnable body) {
+        long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        body.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        System.out.printf("%-9s %-18s %8.1f ns/op %8.1f B/op%n", label, name, (double) nanos / count, (double) bytes / count);
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.management.workload;
+
+import com.example.management.controller.ItemController;
+import com.example.management.controller.OwnerController;
+import com.example.management.model.Item;
+import com.example.management.model.Owner;
+import com.example.management.model.Transaction;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+// Headless load tool for the controller layer. Seeds the store with skewed data (a few owners hold most
+// items, a few hot items carry long repair histories), then runs a generated or recorded operation list
+// from many threads at a target rate and prints throughput and latency percentiles per operation.
+//
+//   java -cp <classes>:lib/* com.example.management.workload.Workload owners=1000 items=100000 history=200000
+//        threads=8 ops=200000 rate=20000 mix=add:5,assign:20,unassign:15,repair:30,search:25,delete:5
+//        seed=1 record=run.ops    (or replay=run.ops instead of generating)   dir=<data dir, default a new temp dir>
+public class Workload {
+    enum Kind { ADD, ASSIGN, UNASSIGN, REPAIR, SEARCH, DELETE }
+
+    // Targets are picked by skewed rank but stored as ids, resolved against the freshly populated store when
+    // the list is generated, so a replay hits the same owners and items however its threads interleave.
+    // arg is the repair amount, or picks the name an ADD creates or a SEARCH looks for.
+    record Op(int thread, Kind kind, int ownerId, int itemId, int arg) { }
+
+    // what a recording needs to populate the same store again; written as its first line
+    private static final List<String> POPULATION = List.of("seed", "owners", "items", "history");
+
+    private static final double SKEW = 6.0; // rank = n * u^SKEW: about 60% of picks land in the first 5% of ranks
+
+    private final ItemController items = new ItemController();
+    private final OwnerController owners = new OwnerController();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        // set before anything opens its files, so the ledger, history and descriptions never land in the
+        // working directory's data; a fresh temp dir by default, so every run starts from nothing
+        Path dir = options.containsKey("dir") ? Files.createDirectories(Path.of(options.get("dir"))) : Files.createTempDirectory("workload");
+        System.setProperty("management.data.dir", dir.toString());
+        System.setProperty("management.descriptions.dir", dir.toString());
+        new Workload().run(options);
+    }
+
+    private void run(Map<String, String> options) throws Exception {
+        List<Op> ops = null;
+        if (options.containsKey("replay")) {
+            ops = read(Path.of(options.get("replay")), options);
+        }
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int ownerCount = intOption(options, "owners", 1_000);
+        int itemCount = intOption(options, "items", 100_000);
+        int historyCount = intOption(options, "history", 200_000);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long start = System.nanoTime();
+        populate(random, ownerCount, itemCount, historyCount);
+        System.out.printf("Populated %d owners, %d items in %.1f s%n", owners.countOwners(), items.countItems(), (System.nanoTime() - start) / 1e9);
+
+        int threads;
+        if (ops != null) {
+            threads = ops.stream().mapToInt(Op::thread).max().orElse(0) + 1;
+        }
+        else {
+            threads = intOption(options, "threads", Runtime.getRuntime().availableProcessors());
+            ops = generate(random, threads, intOption(options, "ops", 100_000), mix(options.getOrDefault("mix",
+                    "add:5,assign:20,unassign:15,repair:30,search:25,delete:5")));
+        }
+        if (options.containsKey("record")) {
+            write(Path.of(options.get("record")), ops, List.of(seed, ownerCount, itemCount, historyCount));
+        }
+        report(ops, drive(ops, threads, Double.parseDouble(options.getOrDefault("rate", "0"))));
+    }
+
+    private void populate(SplittableRandom random, int ownerCount, int itemCount, int historyCount) {
+        List<Owner> created = new ArrayList<>(ownerCount);
+        for (int i = 0; i < ownerCount; i++) {
+            created.add(owners.addOwner("owner-" + i));
+        }
+        // roughly two thirds of the items get an owner, picked with the same skew as the operations
+        Map<Owner, List<Item>> holdings = new LinkedHashMap<>();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = items.addItem("item-" + i, "generated item " + i);
+            if (ownerCount > 0 && random.nextInt(3) != 0) {
+                holdings.computeIfAbsent(created.get(skewed(random, ownerCount)), owner -> new ArrayList<>()).add(item);
+            }
+        }
+        holdings.forEach(owners::assignItemsToOwner);
+        for (int i = 0; i < historyCount && itemCount > 0; i++) {
+            items.repairItem(items.findItems(skewed(random, itemCount), 1, false).get(0), 1 + random.nextInt(20));
+        }
+    }
+
+    private List<Op> generate(SplittableRandom random, int threads, int count, Map<Kind, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (total <= 0) {
+            throw new IllegalArgumentException("The operation mix needs at least one positive weight");
+        }
+        int[] ownerIds = owners.findOwners(0, owners.countOwners(), false).stream().mapToInt(Owner::getId).toArray();
+        int[] itemIds = items.findItems(0, items.countItems(), false).stream().mapToInt(Item::getId).toArray();
+        List<Op> ops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int pick = random.nextInt(total);
+            Kind kind = null;
+            for (Map.Entry<Kind, Integer> entry : mix.entrySet()) {
+                pick -= entry.getValue();
+                if (pick < 0) {
+                    kind = entry.getKey();
+                    break;
+                }
+            }
+            int ownerRank = skewedFraction(random);
+            int itemRank = skewedFraction(random);
+            int arg = switch (kind) {
+                case ADD -> ownerRank;
+                case REPAIR -> 1 + ownerRank % 20;
+                case SEARCH -> itemRank % 1000;
+                default -> 0;
+            };
+            ops.add(new Op(i % threads, kind, pick(ownerIds, ownerRank), pick(itemIds, itemRank), arg));
+        }
+        return ops;
+    }
+
+    private static int pick(int[] ids, int fraction) {
+        return ids.length > 0 ? ids[rank(fraction, ids.length)] : Transaction.NONE;
+    }
+
+    // Open loop: every op has a scheduled start (rate / threads per thread, 0 = as fast as possible), and
+    // latency is measured from that start, so a stall shows up in the numbers instead of slowing the load.
+    private long[] drive(List<Op> ops, int threads, double rate) throws Exception {
+        long[] latencies = new long[ops.size()];
+        long intervalNanos = rate > 0 ? (long) (1e9 * threads / rate) : 0;
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                running.add(executor.submit(() -> {
+                    long next = begin;
+                    for (int i = 0; i < ops.size(); i++) {
+                        Op op = ops.get(i);
+                        if (op.thread() != thread) continue;
+                        if (intervalNanos > 0) {
+                            while (System.nanoTime() < next) {
+                                LockSupport.parkNanos(next - System.nanoTime());
+                            }
+                        }
+                        long scheduled = intervalNanos > 0 ? next : System.nanoTime();
+                        execute(op);
+                        latencies[i] = System.nanoTime() - scheduled;
+                        next += intervalNanos;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("Ran %d ops on %d threads in %.2f s (%.0f ops/s)%n", ops.size(), threads, seconds, ops.size() / seconds);
+        return latencies;
+    }
+
+    // an item deleted by an earlier op is simply skipped
+    private void execute(Op op) {
+        switch (op.kind()) {
+            case ADD -> items.addItem("item-x" + op.arg(), "added by workload");
+            case ASSIGN -> {
+                Item item = items.findItem(op.itemId());
+                Owner owner = owners.findOwner(op.ownerId());
+                if (item != null && owner != null) {
+                    try {
+                        owners.assignItemToOwner(owner, item);
+                    } catch (IllegalArgumentException e) {
+                        // deleted by another thread since we looked it up
+                    }
+                }
+            }
+            case UNASSIGN -> {
+                Item item = items.findItem(op.itemId());
+                Owner owner = item != null ? item.getOwner() : null;
+                if (owner != null) items.unassignItemFromOwner(owner, item);
+            }
+            case REPAIR -> {
+                Item item = items.findItem(op.itemId());
+                if (item != null) items.repairItem(item, op.arg());
+            }
+            case SEARCH -> items.searchItems("item-" + op.arg(), 50);
+            case DELETE -> items.deleteItem(op.itemId());
+        }
+    }
+
+    private static void report(List<Op> ops, long[] latencies) {
+        Map<Kind, List<Long>> byKind = new LinkedHashMap<>();
+        for (int i = 0; i < ops.size(); i++) {
+            byKind.computeIfAbsent(ops.get(i).kind(), kind -> new ArrayList<>()).add(latencies[i]);
+        }
+        System.out.printf("%-9s %9s %10s %10s %10s %10s %10s%n", "op", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Kind, List<Long>> entry : byKind.entrySet()) {
+            long[] sorted = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            System.out.printf("%-9s %9d %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(), sorted.length,
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                    sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    // population holds the values of POPULATION, in its order
+    private static void write(Path file, List<Op> ops, List<? extends Number> population) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("#");
+            for (int i = 0; i < POPULATION.size(); i++) {
+                out.write(" " + POPULATION.get(i) + "=" + population.get(i));
+            }
+            out.newLine();
+            for (Op op : ops) {
+                out.write(op.thread() + " " + op.kind() + " " + op.ownerId() + " " + op.itemId() + " " + op.arg());
+                out.newLine();
+            }
+        }
+    }
+
+    // the recording's population options replace the command line's, since its ids only exist in that store
+    private static List<Op> read(Path file, Map<String, String> options) throws IOException {
+        List<Op> ops = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                if (line.startsWith("#")) {
+                    for (String option : line.substring(1).trim().split(" +")) {
+                        int eq = option.indexOf('=');
+                        if (eq > 0 && POPULATION.contains(option.substring(0, eq))) {
+                            options.put(option.substring(0, eq), option.substring(eq + 1));
+                        }
+                    }
+                    continue;
+                }
+                String[] parts = line.trim().split(" ");
+                if (parts.length != 5) {
+                    throw new IOException("Not a recording from this version of the workload: " + line);
+                }
+                ops.add(new Op(Integer.parseInt(parts[0]), Kind.valueOf(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), Integer.parseInt(parts[4])));
+            }
+        }
+        return ops;
+    }
+
+    private static Map<Kind, Integer> mix(String spec) {
+        Map<Kind, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(Kind.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int fallback) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value.replace("_", "")) : fallback;
+    }
+
+    private static int skewed(SplittableRandom random, int n) {
+        return rank(skewedFraction(random), n);
+    }
+
+    private static int skewedFraction(SplittableRandom random) {
+        return (int) (Math.pow(random.nextDouble(), SKEW) * (1 << 30));
+    }
+
+    private static int rank(int fraction, int n) {
+        return (int) ((long) fraction * n >>> 30);
+    }
+}
@@ -8,9 +8,20 @@ module javafxapp {
     requires com.fasterxml.jackson.annotation;
     requires com.fasterxml.jackson.datatype.jsr310;
 
+    // headless API server
+    requires jdk.httpserver;
+
+    // client side of the API load test
+    requires java.net.http;
+
+    // per-thread allocation counters for the benchmark mains
+    requires jdk.management;
+
     // Open packages for reflection
     opens com.example.management to javafx.fxml; // if you have FXML controllers here
     opens com.example.management.model to com.fasterxml.jackson.databind; // <-- key line
+    opens com.example.management.data to com.fasterxml.jackson.databind; // snapshot shard records
+    opens com.example.management.api to com.fasterxml.jackson.databind; // request/response records
 
     // Exports (as needed)
     exports com.example.management;